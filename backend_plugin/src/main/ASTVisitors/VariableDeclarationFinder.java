@@ -4,15 +4,43 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.ASTVisitor;
 import org.eclipse.jdt.core.dom.VariableDeclaration;
 import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
 
 /**
- * ASTVisitor class that finds any VariableDeclaration nodes in the AST
+ * ASTVisitor class that finds any VariableDeclaration nodes in the AST. Stops descending into
+ * the AST as soon as its progress monitor is cancelled.
  */
 public final class VariableDeclarationFinder extends ASTVisitor {
   private final List<VariableDeclaration> vars = new ArrayList<>();
+  private final IProgressMonitor monitor;
+
+  /**
+   * Creates a VariableDeclarationFinder that visits the whole AST
+   */
+  public VariableDeclarationFinder() {
+    this(new NullProgressMonitor());
+  }
+
+  /**
+   * Creates a VariableDeclarationFinder that stops visiting once the given monitor is cancelled
+   * @param monitor the progress monitor to check for cancellation
+   */
+  public VariableDeclarationFinder(IProgressMonitor monitor) {
+    this.monitor = monitor;
+  }
+
+  /**
+   * Skips the rest of the AST once the monitor has been cancelled
+   */
+  @Override
+  public boolean preVisit2(ASTNode node) {
+    return !monitor.isCanceled();
+  }
 
   /**
    * If any VariableDeclarationFragments are found in the AST, then save them
@@ -1,11 +1,7 @@
 package main.evaluators;
 
-import java.util.Iterator;
-
 import org.eclipse.jface.text.BadLocationException;
-import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.IDocument;
-import org.eclipse.jface.text.source.Annotation;
 import org.eclipse.jface.text.source.IAnnotationModel;
 
 import main.interfaces.FeatureID;
@@ -17,107 +13,103 @@ import main.interfaces.FeatureID;
  */
 public class AddImportEvaluator extends FeatureEvaluator {
 
-    	/** Flag to set if an unresolved variable is found in the document*/
-	private boolean unresolvedVariablesExist;
-	/** Flag to set if the line being edited was not previously an import statement */
-	private boolean lineHadImportStatementAlready;
-
 	/**
-	 * Construct an AddImportEvaluator
+	 * Construct an AddImportEvaluator. The number of annotations in the document reporting an
+	 * unresolved type is kept in the document's FeatureEvaluatorState.
+	 * @param document The document to evaluate changes in, or null for the shared instance
 	 */
 	public AddImportEvaluator(IDocument document) {
-		this.featureID = FeatureID.ADD_IMPORT_FEATURE_ID;
-		this.lineHadImportStatementAlready = false;
-		this.unresolvedVariablesExist = false;
-		this.document = document;
+		super(document, FeatureID.ADD_IMPORT_FEATURE_ID, BEFORE_DOCUMENT_CHANGE | DOCUMENT_CHANGE |
+				ANNOTATION_MODEL_CHANGE, DocumentChangeContext.ANY_CONTENT, EvaluationTier.INLINE);
 	}
 
 	/**
-	 * Checks whether a document change event is occurring on a line that did
-	 * not have an import statement previously. Should never trigger a feature
-	 * suggestion on its own, so always returns false.
-	 * @param event The document change data
-	 * @return false
+	 * Checks whether a document change event is occurring on a line that did not have an import
+	 * statement previously. The line's contents before the change are shared by the Evaluator
+	 * in the context.
+	 * @param context The shared information about the change
+	 * @param state The state of the document
+	 * @param timeStamp The time, in milliseconds, at which the user made the change
+	 * @return true if an import statement was added while there are unresolved types; false otherwise
 	 */
 	@Override
-	public boolean evaluateDocumentBeforeChange(DocumentEvent event) {
-		try {
-
-			// If the line before the change event was an import statement,
-			// update the boolean flag to reflect that
-			int line = document.getLineOfOffset(event.getOffset());
-			this.lineHadImportStatementAlready = lineIsAnImportStatement(line);
-		} catch (BadLocationException e) {
-		}
-		return false;
-	}
-
-	/**
-	 * Checks whether a document change event is occurring on a line that did
-	 * not have an import statement previously
-	 * @param event The document change data
-	 * @return false
-	 */
-	@Override
-	public boolean evaluateDocumentChanges(DocumentEvent event) {
+	public boolean evaluateDocumentChanges(DocumentChangeContext context, FeatureEvaluatorState state,
+			long timeStamp) {
 		try {
 
 			// If the line before the change was not an import statement, but the
 			// line after the change is, and there are unresolved variables, return true
-			int line = document.getLineOfOffset(event.getOffset());
-			return this.unresolvedVariablesExist &&
-					!this.lineHadImportStatementAlready && lineIsAnImportStatement(line);
+			return state.unresolvedTypeCount > 0 &&
+					!isImportStatement(context.getLineTextBeforeChange()) &&
+					isImportStatement(context.getLineText());
 		} catch (BadLocationException e) {
 		}
 		return false;
 	}
 
 	/**
-	 * Checks if the given line begins with an import statement
+	 * Checks if the given line of the document this evaluator was constructed with begins with an
+	 * import statement
 	 * @param line The line to check
-	 * @return
+	 * @return true if the line is an import statement; false otherwise
 	 */
 	public boolean lineIsAnImportStatement(int line) {
 		try {
+			IDocument document = getDocument();
 			int startOffset = document.getLineOffset(line);
 			int length = document.getLineLength(line);
-
-			// Use a regular expression to remove only the leading white space from
-			// the line, then check if the line starts with "import "
-			String lineContents = document.get(startOffset, length);
-			return lineContents.replaceAll("^\\s+", "").startsWith("import ");
+			return isImportStatement(document.get(startOffset, length));
 		} catch (BadLocationException e) {
 		}
 		return false;
 	}
 
 	/**
-	 * Updates the boolean flag of this AddImportEvaluator that tracks whether
-	 * there exist any unresolved types in the document. This returns false
-	 * always, as a change to the annotation model should not by itself trigger
-	 * a notification to the frontend.
+	 * Checks if the given line contents begin with an import statement
+	 * @param lineContents The contents of the line, or null if they are unknown
+	 * @return true if the line is an import statement; false otherwise
+	 */
+	private boolean isImportStatement(String lineContents) {
+
+		// Use a regular expression to remove only the leading white space from
+		// the line, then check if the line starts with "import "
+		return lineContents != null && lineContents.replaceAll("^\\s+", "").startsWith("import ");
+	}
+
+	/**
+	 * Updates the count of unresolved types in the document by classifying every annotation in
+	 * the given model. This returns false always, as a change to the annotation model should not
+	 * by itself trigger a notification to the frontend.
 	 * @param model The annotation model attached to the document window
 	 * @return false
 	 */
 	@Override
 	public boolean evaluateAnnotationModelChanges(IAnnotationModel model) {
-		Iterator<Annotation> it = model.getAnnotationIterator();
-
-		// Iterate through all annotations
-		while (it.hasNext()) {
-			Annotation current = it.next();
-
-			// If the annotation is valid and represents an unresolved variable,
-			// update the flag for unresolved variables existing
-			if (current.getText() != null && current.getText().endsWith("cannot be resolved to a type") &&
-					!current.isMarkedDeleted()) {
-				this.unresolvedVariablesExist = true;
-				return false;
-			}
-		}
+		AnnotationClassifier classifier = new AnnotationClassifier();
+		classifier.classifyAll(model);
+		return evaluateAnnotationModelChanges(model, classifier);
+	}
 
-		// There are no unresolved variables in the document
-		this.unresolvedVariablesExist = false;
+	/**
+	 * Updates the count of unresolved types in the document from the Evaluator's shared
+	 * classification. This returns false always, as a change to the annotation model should not
+	 * by itself trigger a notification to the frontend.
+	 * @param model The annotation model attached to the document window
+	 * @param classifier The up to date classification of the annotation model's annotations
+	 * @param state The state of the document
+	 * @return false
+	 */
+	@Override
+	public boolean evaluateAnnotationModelChanges(IAnnotationModel model, AnnotationClassifier classifier,
+			FeatureEvaluatorState state) {
+		state.unresolvedTypeCount = classifier.getCount(AnnotationCategory.UNRESOLVED_TYPE);
 		return false;
 	}
+
+	/**
+	 * @return The number of annotations in the document currently reporting an unresolved type
+	 */
+	public int getUnresolvedTypeAnnotationCount() {
+		return getOwnState().unresolvedTypeCount;
+	}
 }
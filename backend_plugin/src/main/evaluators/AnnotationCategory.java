@@ -0,0 +1,14 @@
+package main.evaluators;
+
+/**
+ * The kinds of annotations that feature evaluators are interested in. The AnnotationClassifier
+ * sorts a document's annotations into these categories and keeps a count for each.
+ */
+public enum AnnotationCategory {
+
+	/** A reference to a type that cannot be resolved (IProblem.UndefinedType) */
+	UNRESOLVED_TYPE,
+
+	/** An import statement that is never used (IProblem.UnusedImport) */
+	UNUSED_IMPORT
+}
@@ -0,0 +1,237 @@
+package main.evaluators;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.jdt.core.IJavaModelMarker;
+import org.eclipse.jdt.core.compiler.IProblem;
+import org.eclipse.jface.text.source.Annotation;
+import org.eclipse.jface.text.source.IAnnotationModel;
+
+/**
+ * Sorts the annotations of a document into AnnotationCategories, and keeps a count of how many
+ * annotations currently fall into each category. Each Evaluator owns one classifier, which walks
+ * the annotations once per annotation model change, and which every feature evaluator can read.
+ *
+ * Annotations are classified by their JDT problem ID. Marker annotations carry the ID as an
+ * attribute of their marker, and the Java editor's reconciler annotations provide it through a
+ * getId() method. Neither annotation class is available to this plugin, so both accessors are
+ * looked up reflectively, once per annotation class. Only annotations that provide no problem ID
+ * at all are classified by their message text.
+ */
+public class AnnotationClassifier {
+
+	/** Value used when an annotation does not provide a problem ID */
+	private static final int NO_PROBLEM_ID = -1;
+
+	/** The getId() method of each annotation class, or null if the class has none */
+	private static final ClassValue<Method> PROBLEM_ID_METHODS = new ClassValue<Method>() {
+		@Override
+		protected Method computeValue(Class<?> type) {
+			return findMethod(type, "getId", int.class);
+		}
+	};
+	/** The getMarker() method of each annotation class, or null if the class has none */
+	private static final ClassValue<Method> MARKER_METHODS = new ClassValue<Method>() {
+		@Override
+		protected Method computeValue(Class<?> type) {
+			return findMethod(type, "getMarker", IMarker.class);
+		}
+	};
+
+	/** The category of each annotation currently in the model that falls into one */
+	private final Map<Annotation, AnnotationCategory> categorized;
+	/** Number of annotations currently in each category, indexed by category ordinal */
+	private final int[] counts;
+
+	/**
+	 * Constructs an AnnotationClassifier with no annotations classified
+	 */
+	public AnnotationClassifier() {
+		this.categorized = new HashMap<Annotation, AnnotationCategory>();
+		this.counts = new int[AnnotationCategory.values().length];
+	}
+
+	/**
+	 * Brings the classification up to date with the given annotation model changes. Only the
+	 * annotations in the delta are looked at, unless the delta is a world change, in which case
+	 * every annotation in the model is classified again.
+	 * @param model The annotation model attached to the document window
+	 * @param delta The annotations that were added, removed, or changed
+	 */
+	public void update(IAnnotationModel model, AnnotationModelDelta delta) {
+		if (delta.isWorldChange()) {
+			classifyAll(model);
+			return;
+		}
+
+		for (Annotation removed : delta.getRemovedAnnotations()) {
+			uncount(removed);
+		}
+
+		// A changed annotation may have been marked deleted, or changed its problem
+		for (Annotation changed : delta.getChangedAnnotations()) {
+			uncount(changed);
+			count(changed);
+		}
+		for (Annotation added : delta.getAddedAnnotations()) {
+			count(added);
+		}
+	}
+
+	/**
+	 * Classifies every annotation in the given model, discarding the previous classification
+	 * @param model The annotation model attached to the document window
+	 */
+	public void classifyAll(IAnnotationModel model) {
+		this.categorized.clear();
+		for (int i = 0; i < this.counts.length; i++) {
+			this.counts[i] = 0;
+		}
+
+		Iterator<Annotation> it = model.getAnnotationIterator();
+		while (it.hasNext()) {
+			count(it.next());
+		}
+	}
+
+	/**
+	 * @param category The category to count
+	 * @return The number of annotations in the document currently in the given category
+	 */
+	public int getCount(AnnotationCategory category) {
+		return this.counts[category.ordinal()];
+	}
+
+	/**
+	 * Classifies the given annotation and, if it falls into a category, counts it
+	 * @param annotation The annotation to count
+	 */
+	private void count(Annotation annotation) {
+		AnnotationCategory category = classify(annotation);
+		if (category != null && this.categorized.put(annotation, category) == null) {
+			this.counts[category.ordinal()]++;
+		}
+	}
+
+	/**
+	 * Stops counting the given annotation, if it was counted
+	 * @param annotation The annotation to stop counting
+	 */
+	private void uncount(Annotation annotation) {
+		AnnotationCategory category = this.categorized.remove(annotation);
+		if (category != null) {
+			this.counts[category.ordinal()]--;
+		}
+	}
+
+	/**
+	 * Determines which category, if any, the given annotation falls into
+	 * @param annotation The annotation to classify
+	 * @return The category of the annotation, or null if it does not fall into one
+	 */
+	public static AnnotationCategory classify(Annotation annotation) {
+		if (annotation.isMarkedDeleted()) {
+			return null;
+		}
+
+		int problemId = getProblemId(annotation);
+		if (problemId == IProblem.UndefinedType) {
+			return AnnotationCategory.UNRESOLVED_TYPE;
+		}
+		if (problemId == IProblem.UnusedImport) {
+			return AnnotationCategory.UNUSED_IMPORT;
+		}
+		if (problemId != NO_PROBLEM_ID) {
+			return null;
+		}
+
+		// Without a problem ID, fall back on the (English) problem message
+		String text = annotation.getText();
+		if (text == null) {
+			return null;
+		}
+		if (text.endsWith("cannot be resolved to a type")) {
+			return AnnotationCategory.UNRESOLVED_TYPE;
+		}
+		if (text.startsWith("The import") && text.endsWith("never used")) {
+			return AnnotationCategory.UNUSED_IMPORT;
+		}
+		return null;
+	}
+
+	/**
+	 * Finds the JDT problem ID of the given annotation
+	 * @param annotation The annotation to find the problem ID of
+	 * @return The problem ID, or NO_PROBLEM_ID if the annotation does not provide one
+	 */
+	private static int getProblemId(Annotation annotation) {
+		try {
+
+			// Problem markers (from builds) store the ID as a marker attribute
+			Method getMarker = MARKER_METHODS.get(annotation.getClass());
+			if (getMarker != null) {
+				IMarker marker = (IMarker) getMarker.invoke(annotation);
+				return marker == null ? NO_PROBLEM_ID : marker.getAttribute(IJavaModelMarker.ID, NO_PROBLEM_ID);
+			}
+
+			// Problems found while reconciling are reported through annotations that provide the
+			// ID directly
+			Method getId = PROBLEM_ID_METHODS.get(annotation.getClass());
+			if (getId != null) {
+				return (Integer) getId.invoke(annotation);
+			}
+		} catch (ReflectiveOperationException | RuntimeException e) {
+		}
+		return NO_PROBLEM_ID;
+	}
+
+	/**
+	 * Looks for a public, no argument method on the given class. The method is looked up on a
+	 * public interface where possible, so that it can be called even when the annotation class
+	 * itself is not public.
+	 * @param type The annotation class
+	 * @param name The name of the method
+	 * @param returnType The type the method must return
+	 * @return The method, or null if the class does not have one
+	 */
+	private static Method findMethod(Class<?> type, String name, Class<?> returnType) {
+		for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+			for (Class<?> implemented : current.getInterfaces()) {
+				Method method = getMethod(implemented, name, returnType);
+				if (method != null && Modifier.isPublic(implemented.getModifiers())) {
+					return method;
+				}
+			}
+		}
+
+		Method method = getMethod(type, name, returnType);
+		if (method != null) {
+			try {
+				method.setAccessible(true);
+			} catch (RuntimeException e) {
+				return null;
+			}
+		}
+		return method;
+	}
+
+	/**
+	 * @param type The class to look the method up on
+	 * @param name The name of the method
+	 * @param returnType The type the method must return
+	 * @return The public, no argument method with the given name and return type, or null
+	 */
+	private static Method getMethod(Class<?> type, String name, Class<?> returnType) {
+		try {
+			Method method = type.getMethod(name);
+			return returnType.isAssignableFrom(method.getReturnType()) ? method : null;
+		} catch (NoSuchMethodException | SecurityException e) {
+			return null;
+		}
+	}
+}
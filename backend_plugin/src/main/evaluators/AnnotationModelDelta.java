@@ -0,0 +1,157 @@
+package main.evaluators;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.jface.text.source.Annotation;
+import org.eclipse.jface.text.source.AnnotationModelEvent;
+
+/**
+ * Collects the annotations that were added to, removed from, or changed within an annotation
+ * model across one or more AnnotationModelEvents. Feature evaluators use the delta to keep their
+ * annotation based state up to date without rescanning the whole annotation model.
+ *
+ * A delta can instead be a "world change", meaning the model changed in a way that was not
+ * described annotation by annotation, and the whole model has to be rescanned.
+ */
+public class AnnotationModelDelta {
+
+	/** Annotations added to the model */
+	private final Set<Annotation> added;
+	/** Annotations removed from the model */
+	private final Set<Annotation> removed;
+	/** Annotations already in the model that were changed */
+	private final Set<Annotation> changed;
+	/** Flag set when the whole model has to be rescanned */
+	private boolean worldChange;
+
+	/**
+	 * Constructs an empty AnnotationModelDelta
+	 */
+	public AnnotationModelDelta() {
+		this.added = new HashSet<Annotation>();
+		this.removed = new HashSet<Annotation>();
+		this.changed = new HashSet<Annotation>();
+		this.worldChange = false;
+	}
+
+	/**
+	 * @return A new delta indicating that the whole annotation model has to be rescanned
+	 */
+	public static AnnotationModelDelta worldChange() {
+		AnnotationModelDelta delta = new AnnotationModelDelta();
+		delta.markWorldChange();
+		return delta;
+	}
+
+	/**
+	 * Merges the given event into this delta
+	 * @param event The annotation model change data
+	 */
+	public void add(AnnotationModelEvent event) {
+		if (event.isWorldChange()) {
+			markWorldChange();
+			return;
+		}
+		for (Annotation annotation : event.getAddedAnnotations()) {
+			annotationAdded(annotation);
+		}
+		for (Annotation annotation : event.getRemovedAnnotations()) {
+			annotationRemoved(annotation);
+		}
+		for (Annotation annotation : event.getChangedAnnotations()) {
+			annotationChanged(annotation);
+		}
+	}
+
+	/**
+	 * Records that the given annotation was added to the model
+	 * @param annotation The added annotation
+	 */
+	public void annotationAdded(Annotation annotation) {
+		if (this.worldChange) {
+			return;
+		}
+
+		// An annotation removed and then added back is simply a change
+		if (this.removed.remove(annotation)) {
+			this.changed.add(annotation);
+		} else {
+			this.added.add(annotation);
+		}
+	}
+
+	/**
+	 * Records that the given annotation was removed from the model
+	 * @param annotation The removed annotation
+	 */
+	public void annotationRemoved(Annotation annotation) {
+		if (this.worldChange) {
+			return;
+		}
+
+		// An annotation added and then removed again never needs to be seen
+		if (!this.added.remove(annotation)) {
+			this.changed.remove(annotation);
+			this.removed.add(annotation);
+		}
+	}
+
+	/**
+	 * Records that the given annotation, already in the model, was changed
+	 * @param annotation The changed annotation
+	 */
+	public void annotationChanged(Annotation annotation) {
+		if (this.worldChange || this.added.contains(annotation)) {
+			return;
+		}
+		this.changed.add(annotation);
+	}
+
+	/**
+	 * Marks this delta as a world change, discarding the individual annotations it holds
+	 */
+	public void markWorldChange() {
+		this.worldChange = true;
+		this.added.clear();
+		this.removed.clear();
+		this.changed.clear();
+	}
+
+	/**
+	 * @return true if the whole annotation model has to be rescanned; false if the individual
+	 * 			added, removed, and changed annotations describe the change
+	 */
+	public boolean isWorldChange() {
+		return this.worldChange;
+	}
+
+	/**
+	 * @return true if this delta holds no changes at all; false otherwise
+	 */
+	public boolean isEmpty() {
+		return !this.worldChange && this.added.isEmpty() && this.removed.isEmpty() && this.changed.isEmpty();
+	}
+
+	/**
+	 * @return An unmodifiable view of the annotations added to the model
+	 */
+	public Set<Annotation> getAddedAnnotations() {
+		return Collections.unmodifiableSet(this.added);
+	}
+
+	/**
+	 * @return An unmodifiable view of the annotations removed from the model
+	 */
+	public Set<Annotation> getRemovedAnnotations() {
+		return Collections.unmodifiableSet(this.removed);
+	}
+
+	/**
+	 * @return An unmodifiable view of the annotations already in the model that were changed
+	 */
+	public Set<Annotation> getChangedAnnotations() {
+		return Collections.unmodifiableSet(this.changed);
+	}
+}
@@ -12,46 +12,54 @@ import main.interfaces.FeatureID;
  */
 public class BlockCommentEvaluator extends FeatureEvaluator {
 
-    	/** Keeps track of the last line commented out in the document */
-	private int lastCommentedLine;
-	/** Keeps track of the timestamp of when the last line was commented out */
-	private long lastCommentedLineTimeStamp;
-
 	/**
-	 * Default constructor
-	 * @param document The document to evaluate changes in
+	 * Default constructor. The last line commented out in the document, and when, are kept in the
+	 * document's FeatureEvaluatorState.
+	 * @param document The document to evaluate changes in, or null for the shared instance
 	 */
 	public BlockCommentEvaluator(IDocument document) {
-		this.featureID = FeatureID.BLOCK_COMMENT_FEATURE_ID;
-		this.document = document;
-		this.lastCommentedLine = -2;  // Any arbitrary value < -1 would work
-		this.lastCommentedLineTimeStamp = -1;  // Any arbitrary value < 0 will work
+		// A line can only become commented out by typing or pasting a slash
+		super(document, FeatureID.BLOCK_COMMENT_FEATURE_ID, DOCUMENT_CHANGE, DocumentChangeContext.SLASH,
+				EvaluationTier.INLINE);
+	}
+
+	/**
+	 * Forgets the last line that was commented out
+	 * @param state The state of the document
+	 */
+	@Override
+	public void rebaseline(FeatureEvaluatorState state) {
+		state.lastCommentedLine = FeatureEvaluatorState.INVALID_LINE;  // Any arbitrary value < -1 would work
+		state.lastCommentedLineTimeStamp = FeatureEvaluatorState.INVALID_TIME_STAMP;  // Any arbitrary value < 0 will work
 	}
 
 	/**
 	 * Keeps track of DocumentEvent changes and determines of the user comments out multiple sequential lines of code.
-	 * @param event The document change data
+	 * @param context The shared information about the change
+	 * @param state The state of the document
+	 * @param timeStamp The time, in milliseconds, at which the user made the change
 	 * @return true if the user comments two sequential lines of code, false otherwise
 	 */
 	@Override
-	public boolean evaluateDocumentChanges(DocumentEvent event) {
+	public boolean evaluateDocumentChanges(DocumentChangeContext context, FeatureEvaluatorState state,
+			long timeStamp) {
 		try {
 
 			boolean triggered = false;
 
 			// Get the line number of the change
-			int line = document.getLineOfOffset(event.getOffset());
+			int line = context.getLine();
 
 			// Check if the line is newly commented out
-			if (newCommentDetected(event, line)) {
+			if (newCommentDetected(context)) {
 
 				// The user commented out the line. Check and see if they previously commented out an adjacent line
 				// manually
-				triggered = adjacentToLastCommentedLine(line);
+				triggered = adjacentToLastCommentedLine(state, line, timeStamp);
 
 				// Since the line has been commented out, update the information about the last commented line
-				this.lastCommentedLine = line;
-				this.lastCommentedLineTimeStamp = System.currentTimeMillis();
+				state.lastCommentedLine = line;
+				state.lastCommentedLineTimeStamp = timeStamp;
 			}
 
 			return triggered;
@@ -64,18 +72,15 @@ public class BlockCommentEvaluator extends FeatureEvaluator {
 	}
 
 	/**
-	 * Checks if the given line is commented out in the given document
-	 * @param line The number of the line to check
-	 * @return true if the given line is commented out; false otherwise
+	 * Checks if the line the change occurred on is commented out
+	 * @param context The shared information about the change
+	 * @return true if the line is commented out; false otherwise
 	 */
-	private boolean lineIsCommentedOut(int line) {
+	private boolean lineIsCommentedOut(DocumentChangeContext context) {
 		try {
 
-			// Check if the given line minus white space starts with a double slash
-			int lineOffset = document.getLineOffset(line);
-			int lineLength = document.getLineLength(line);
-			String lineText = document.get(lineOffset, lineLength).trim();
-			return lineText.startsWith("//");
+			// Check if the line minus white space starts with a double slash
+			return context.getLineText().trim().startsWith("//");
 		} catch (BadLocationException e) {
 			return false;
 		}
@@ -83,20 +88,25 @@ public class BlockCommentEvaluator extends FeatureEvaluator {
 
 	/**
 	 * Checks if the line the addition was made on was already commented out
-	 * @param event The document change data
-	 * @param line the line number the event occurred on
+	 * @param context The shared information about the change
 	 * @return boolean true if the line was already commented out before the change; false otherwise
 	 */
-	public boolean lineWasPreviouslyCommentedOut(DocumentEvent event, int line) {
+	public boolean lineWasPreviouslyCommentedOut(DocumentChangeContext context) {
 		try {
 
 			// Calculate the contents of the line that previously existed in front of the new insertion and
-			// the contents of the line that previously existed beyond the new insertion
-			int lineStartOffset = document.getLineOffset(line);
-			int lineEndOffset = lineStartOffset + document.getLineLength(line);
-			int insertOffset = event.getOffset();
-			String lineBeforeNewAddition = document.get(lineStartOffset, insertOffset - lineStartOffset).trim();
-			String lineAfterNewAddition = document.get(insertOffset + event.getText().length(), lineEndOffset - insertOffset - 1).trim();
+			// the contents of the line that previously existed beyond the new insertion. Only the line's
+			// contents shared in the context are read, never the document itself, so this also works on
+			// a snapshot of the change evaluated on another thread
+			DocumentEvent event = context.getEvent();
+			String lineText = context.getLineText();
+			int insertOffset = event.getOffset() - context.getLineOffset();
+			int insertEndOffset = insertOffset + event.getText().length();
+			if (insertOffset < 0 || insertEndOffset > lineText.length()) {
+				return false;
+			}
+			String lineBeforeNewAddition = lineText.substring(0, insertOffset).trim();
+			String lineAfterNewAddition = lineText.substring(insertEndOffset).trim();
 
 			// Check all cases (an insertion could come before an existing double slash, after an existing
 			// double slash, or between the slashes of an existing double slash), each indication that
@@ -116,24 +126,47 @@ public class BlockCommentEvaluator extends FeatureEvaluator {
 	 * @return true of the given line is adjacent to the last commented out line; false otherwise
 	 */
 	public boolean adjacentToLastCommentedLine(int line) {
+		return adjacentToLastCommentedLine(line, System.currentTimeMillis());
+	}
+
+	/**
+	 * Checks if the last line that was commented out is adjacent to the given line. Also checks that
+	 * the given line was commented out manually, rather than using the block comment feature
+	 * @param line The line number to check
+	 * @param timeStamp The time, in milliseconds, at which the given line was commented out
+	 * @return true of the given line is adjacent to the last commented out line; false otherwise
+	 */
+	public boolean adjacentToLastCommentedLine(int line, long timeStamp) {
+		return adjacentToLastCommentedLine(getOwnState(), line, timeStamp);
+	}
+
+	/**
+	 * Checks if the last line that was commented out in a document is adjacent to the given line.
+	 * Also checks that the given line was commented out manually, rather than using the block
+	 * comment feature
+	 * @param state The state of the document
+	 * @param line The line number to check
+	 * @param timeStamp The time, in milliseconds, at which the given line was commented out
+	 * @return true of the given line is adjacent to the last commented out line; false otherwise
+	 */
+	private boolean adjacentToLastCommentedLine(FeatureEvaluatorState state, int line, long timeStamp) {
 
 		// Check that the last line that was commented out is adjacent to the given line
-		boolean adjacentLineWasLastCommented = Math.abs(line - this.lastCommentedLine) == 1;
+		boolean adjacentLineWasLastCommented = Math.abs(line - state.lastCommentedLine) == 1;
 
 		// Check that enough time has passed since the last time a line was commented out.
 		// This will prevent triggering when the user actually does use the block comment feature
 		// by using a millisecond threshold
-		boolean lastCommentWasLongEnoughAgo = System.currentTimeMillis() - this.lastCommentedLineTimeStamp > 100;
+		boolean lastCommentWasLongEnoughAgo = timeStamp - state.lastCommentedLineTimeStamp > 100;
 		return adjacentLineWasLastCommented && lastCommentWasLongEnoughAgo;
 	}
 
 	/**
-	 * Checks if the given event caused the given line to be commented out
-	 * @param event The document change data
-	 * @param line The line number the event occurred on
+	 * Checks if the given change caused its line to be commented out
+	 * @param context The shared information about the change
 	 * @return
 	 */
-	public boolean newCommentDetected(DocumentEvent event, int line) {
-		return lineIsCommentedOut(line) && !lineWasPreviouslyCommentedOut(event, line);
+	public boolean newCommentDetected(DocumentChangeContext context) {
+		return lineIsCommentedOut(context) && !lineWasPreviouslyCommentedOut(context);
 	}
 }
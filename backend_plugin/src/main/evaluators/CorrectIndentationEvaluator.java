@@ -1,7 +1,6 @@
 package main.evaluators;
 
 import org.eclipse.jface.text.BadLocationException;
-import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.IDocument;
 
 import main.interfaces.FeatureID;
@@ -13,79 +12,57 @@ import main.interfaces.FeatureID;
  */
 public class CorrectIndentationEvaluator extends FeatureEvaluator {
 
-    	/** Stores the contents of a line in the document before a change is applied */
-	private String lineBeforeChange;
-	/** Flag to keep track of if white space was added or removed through document changes*/
-	private boolean whiteSpaceAddedOrRemoved;
-	/** Keeps track of the last line that had indentation changes */
-	private int lastIndentChangedLine;
-	/** Keeps track of the timestamp of when the last line had indentation changes */
-	private long lastIndentChangedLineTimeStamp;
 	/** Used when an invalid line number is needed */
-	private final int INVALID_LINE = -2;
+	private static final int INVALID_LINE = FeatureEvaluatorState.INVALID_LINE;
 
 	/**
-	 * Constructor
-	 * @param document IDocument that this evaluator is attached to
+	 * Constructor. The last line that had indentation changes, and when, are kept in the
+	 * document's FeatureEvaluatorState.
+	 * @param document IDocument that this evaluator is attached to, or null for the shared instance
 	 */
 	public CorrectIndentationEvaluator(IDocument document) {
-		this.featureID = FeatureID.CORRECT_INDENTATION_FEATURE_ID;
-		this.document = document;
-
-		// Arbitrary default values to avoid special casing for the first document change
-		lineBeforeChange = "";
-		lastIndentChangedLine = INVALID_LINE;  // can't be -1 because we may change indent in line 0
-		whiteSpaceAddedOrRemoved = false;
-		this.lastIndentChangedLineTimeStamp = -1;
+		super(document, FeatureID.CORRECT_INDENTATION_FEATURE_ID, BEFORE_DOCUMENT_CHANGE | DOCUMENT_CHANGE,
+				DocumentChangeContext.ANY_CONTENT, EvaluationTier.INLINE);
 	}
 
 	/**
-	 * If the text about to be added to the document is either whitespace or nothing,
-	 * then save the line of code in a string to reference later
-	 * @param event The document change data
+	 * Forgets the last line that had its indentation changed
+	 * @param state The state of the document
 	 */
 	@Override
-	public boolean evaluateDocumentBeforeChange(DocumentEvent event) {
+	public void rebaseline(FeatureEvaluatorState state) {
 
-		// We only care about adding white space or removing characters
-		// Either of those cases will have a length of 0 once the string is trimmed
-		try {
-			int line = document.getLineOfOffset(event.getOffset());
-			if (event.getText().trim().length() == 0) {
-				int lineOffset = document.getLineOffset(line);
-				int lineLength = document.getLineLength(line);
-				lineBeforeChange = document.get(lineOffset, lineLength);
-				whiteSpaceAddedOrRemoved = true;
-			} else {
-				whiteSpaceAddedOrRemoved = false;
-			}
-		} catch (BadLocationException e) {}
-		return false;
+		// Arbitrary default values to avoid special casing for the first document change
+		state.lastIndentChangedLine = INVALID_LINE;  // can't be -1 because we may change indent in line 0
+		state.lastIndentChangedLineTimeStamp = FeatureEvaluatorState.INVALID_TIME_STAMP;
 	}
 
 	/**
 	 * If the change added white space or removed some character then compare
 	 * the line of code before the change and after the change to determine if
 	 * whitespace was added or removed at the start of the line
-	 * @param event The document change data
+	 * @param context The shared information about the change
+	 * @param state The state of the document
+	 * @param timeStamp The time, in milliseconds, at which the user made the change
 	 */
 	@Override
-	public boolean evaluateDocumentChanges(DocumentEvent event) {
+	public boolean evaluateDocumentChanges(DocumentChangeContext context, FeatureEvaluatorState state,
+			long timeStamp) {
 		try {
 
-			// Since we already checked that we are only adding whitespace or removing text, we just
-			// check the boolean
-			int line = document.getLineOfOffset(event.getOffset());
-			if (whiteSpaceAddedOrRemoved) {
-				if (lineIndentationChanged(event, line) && lineAdjacentToPrevious(line)) {
+			// We only care about adding white space or removing characters
+			// Either of those cases will have a length of 0 once the string is trimmed
+			int line = context.getLine();
+			if (context.getEvent().getText().trim().length() == 0) {
+				if (lineIndentationChanged(context) && lineAdjacentToPrevious(state, line, timeStamp)) {
 					return true;
 				}
 			} else {
 
 				// If white space wasn't added or removed in this line, then reset the lastIndentChangedLine
 				// if we made non-white spaces to it
-				lastIndentChangedLine = (lastIndentChangedLine == line ||
-						lastIndentChangedLine == INVALID_LINE) ? INVALID_LINE : line;
+				state.lastIndentChangedLine = (state.lastIndentChangedLine == line ||
+						state.lastIndentChangedLine == INVALID_LINE) ? INVALID_LINE : line;
 			}
 		} catch (BadLocationException e) {}
 		return false;
@@ -93,18 +70,16 @@ public class CorrectIndentationEvaluator extends FeatureEvaluator {
 
 	/**
 	 * Checks that the only change to the document line was the addition or removal of white space
-	 * @param event the DocumentEvent that occurred
-	 * @param line the line number where the change occurred
+	 * @param context The shared information about the change
 	 * @return true if white space was added or removed to the front of the line, false otherwise
 	 */
-	private boolean lineIndentationChanged(DocumentEvent event, int line) {
+	private boolean lineIndentationChanged(DocumentChangeContext context) {
 		try {
 
 			// If both before and after are identical after trim and the starting
 			// character is different, then we have a changed indentation
-			int lineOffset = document.getLineOffset(line);
-			int lineLength = document.getLineLength(line);
-			String lineAfterChange = document.get(lineOffset, lineLength);
+			String lineAfterChange = context.getLineText();
+			String lineBeforeChange = context.getLineTextBeforeChange() == null ? "" : context.getLineTextBeforeChange();
 
 			if (lineAfterChange.trim().length() == lineBeforeChange.trim().length() &&
 					(getOffsetOfFirstCharInLine(lineAfterChange) != getOffsetOfFirstCharInLine(lineBeforeChange))) {
@@ -135,22 +110,24 @@ public class CorrectIndentationEvaluator extends FeatureEvaluator {
 	/**
 	 * Checks if the previously indented line is adjacent to the current indent changed line
 	 * Also updates lastIndentChangedLine
+	 * @param state The state of the document
 	 * @param line The number of the currently indent changed line
+	 * @param timeStamp The time, in milliseconds, at which the line's indentation was changed
 	 * @return true if the lines are adjacent, false otherwise
 	 */
-	private boolean lineAdjacentToPrevious(int line) {
+	private boolean lineAdjacentToPrevious(FeatureEvaluatorState state, int line, long timeStamp) {
 
 		// Check that the last line that was commented out is adjacent to the given line
-		boolean adjacentLineWasLastCommented = Math.abs(line - this.lastIndentChangedLine) == 1;
+		boolean adjacentLineWasLastCommented = Math.abs(line - state.lastIndentChangedLine) == 1;
 
 		// Check that enough time has passed since the last time a line was commented out.
 		// This will prevent triggering when the user actually does use the block comment feature
 		// by using a millisecond threshold
-		boolean lastCommentWasLongEnoughAgo = System.currentTimeMillis() - this.lastIndentChangedLineTimeStamp > 100;
+		boolean lastCommentWasLongEnoughAgo = timeStamp - state.lastIndentChangedLineTimeStamp > 100;
 
 		// Update the stored values of the last indent changed line
-		this.lastIndentChangedLine = line;
-		this.lastIndentChangedLineTimeStamp = System.currentTimeMillis();
+		state.lastIndentChangedLine = line;
+		state.lastIndentChangedLineTimeStamp = timeStamp;
 
 		return adjacentLineWasLastCommented && lastCommentWasLongEnoughAgo;
 	}
@@ -0,0 +1,295 @@
+package main.evaluators;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+
+/**
+ * The information about a single document change that is shared by all feature evaluators. The
+ * Evaluator builds one context per event and passes it to every interested feature evaluator, so
+ * the line the change occurred on, its bounds, and its contents are looked up in the document at
+ * most once per event, however many feature evaluators need them.
+ *
+ * The contents of the changed line before the change are captured once, before the change is
+ * applied, and carried over to the context of the applied change. Feature evaluators read them
+ * from there instead of copying the line themselves.
+ *
+ * The kinds of content the change inserts or removes are classified once, into a combination of
+ * the content constants below, so that the Evaluator can skip feature evaluators whose content
+ * filter does not match the change without calling them.
+ *
+ * A context may also be detached from its document, e.g. when it is recreated from a
+ * DocumentChangeSnapshot on another thread. A detached context only knows the line data it was
+ * given; looking up anything else fails with a BadLocationException, so feature evaluators never
+ * read a document the UI thread may be modifying.
+ */
+public class DocumentChangeContext {
+
+	/** Content kind of a change that inserts text */
+	public static final int INSERTION = 1;
+	/** Content kind of a change that inserts no text, i.e. only removes text */
+	public static final int DELETION = 1 << 1;
+	/** Content kind of a change whose inserted text is made up only of white space */
+	public static final int WHITE_SPACE = 1 << 2;
+	/** Content kind of a change whose inserted text contains a slash */
+	public static final int SLASH = 1 << 3;
+	/** Content kind of a change whose inserted text contains a line delimiter */
+	public static final int LINE_DELIMITER = 1 << 4;
+	/** Every change is either an insertion or a deletion, so this matches any change */
+	public static final int ANY_CONTENT = INSERTION | DELETION;
+
+	/** Value used for line data that has not been looked up yet */
+	private static final int UNKNOWN = -1;
+
+	/** Document the change was made in, or null if the context is detached from it */
+	private final IDocument document;
+	/** The document change data */
+	private final DocumentEvent event;
+
+	/** Line number the change occurred on, or UNKNOWN if not looked up yet */
+	private int line;
+	/** Offset of the start of the line, or UNKNOWN if not looked up yet */
+	private int lineOffset;
+	/** Length of the line, including its line delimiter, or UNKNOWN if not looked up yet */
+	private int lineLength;
+	/** Contents of the line, including its line delimiter, or null if not looked up yet */
+	private String lineText;
+	/** Contents of the line before the change was applied, or null if they were not captured */
+	private String lineTextBeforeChange;
+	/** Kinds of content the change inserts or removes, or UNKNOWN if not classified yet */
+	private int contentKinds;
+	/** Progress monitor of the job evaluating the change, or null if it is not evaluated by a job */
+	private volatile IProgressMonitor progressMonitor;
+
+	/**
+	 * Constructs a DocumentChangeContext. Nothing is looked up in the document until it is asked for.
+	 * @param document The document the change was made in
+	 * @param event The document change data
+	 */
+	public DocumentChangeContext(IDocument document, DocumentEvent event) {
+		this.document = document;
+		this.event = event;
+		this.line = UNKNOWN;
+		this.lineOffset = UNKNOWN;
+		this.lineLength = UNKNOWN;
+		this.contentKinds = UNKNOWN;
+	}
+
+	/**
+	 * Constructs a DocumentChangeContext whose line data is already known, e.g. because it was
+	 * captured in a DocumentChangeSnapshot
+	 * @param document The document the change was made in, or null to detach the context from it
+	 * @param event The document change data
+	 * @param line The line number the change occurred on
+	 * @param lineOffset The offset of the start of the line
+	 * @param lineText The contents of the line after the change, including its line delimiter
+	 * @param lineTextBeforeChange The contents of the line before the change, or null if unknown
+	 */
+	DocumentChangeContext(IDocument document, DocumentEvent event, int line, int lineOffset,
+			String lineText, String lineTextBeforeChange) {
+		this.document = document;
+		this.event = event;
+		this.line = line;
+		this.lineOffset = lineOffset;
+		this.lineLength = lineText.length();
+		this.lineText = lineText;
+		this.lineTextBeforeChange = lineTextBeforeChange;
+		this.contentKinds = UNKNOWN;
+	}
+
+	/**
+	 * Builds the context of an applied change, carrying over the line contents captured before the
+	 * change by the given context, if it belongs to the same document
+	 * @param beforeChange The context built before the change was applied, or null if none was
+	 * @param document The document the change was made in
+	 * @param event The document change data
+	 * @return The context of the applied change
+	 */
+	public static DocumentChangeContext afterChange(DocumentChangeContext beforeChange, IDocument document,
+			DocumentEvent event) {
+		DocumentChangeContext context = new DocumentChangeContext(document, event);
+		if (beforeChange != null && beforeChange.document == document) {
+			context.lineTextBeforeChange = beforeChange.lineTextBeforeChange;
+		}
+		return context;
+	}
+
+	/**
+	 * Classifies the content a change inserts or removes. Only the inserted text is inspected, so
+	 * this is cheap enough to run for every keystroke.
+	 * @param event The document change data
+	 * @return The kinds of content of the change, as a combination of the content constants
+	 */
+	public static int classify(DocumentEvent event) {
+		String text = event.getText();
+		if (text == null || text.length() == 0) {
+			return DELETION;
+		}
+
+		int kinds = INSERTION;
+		boolean whiteSpaceOnly = true;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '/') {
+				kinds |= SLASH;
+			} else if (c == '\n' || c == '\r') {
+				kinds |= LINE_DELIMITER;
+			}
+			if (!Character.isWhitespace(c)) {
+				whiteSpaceOnly = false;
+			}
+		}
+		return whiteSpaceOnly ? kinds | WHITE_SPACE : kinds;
+	}
+
+	/**
+	 * Copies this context, along with the whole text of its document, so that the change can be
+	 * evaluated on another thread while the user keeps editing. The copy reads its line data, and
+	 * feature evaluators read the document's text, from the copied document only. Must be called
+	 * on the UI thread while the document is still in the state the change describes.
+	 * @return A context of the same change in a private copy of the document
+	 */
+	public DocumentChangeContext freeze() {
+		IDocument copy = new Document(this.document.get());
+		DocumentEvent copiedEvent = new DocumentEvent(copy, this.event.getOffset(), this.event.getLength(),
+				this.event.getText());
+		DocumentChangeContext frozen = new DocumentChangeContext(copy, copiedEvent);
+		frozen.lineTextBeforeChange = this.lineTextBeforeChange;
+		return frozen;
+	}
+
+	/**
+	 * Captures the contents of the changed line. Must be called before the change is applied.
+	 */
+	public void captureLineBeforeChange() {
+		try {
+			this.lineTextBeforeChange = getLineText();
+		} catch (BadLocationException e) {
+			this.lineTextBeforeChange = null;
+		}
+	}
+
+	/**
+	 * @return DocumentEvent The document change data
+	 */
+	public DocumentEvent getEvent() {
+		return this.event;
+	}
+
+	/**
+	 * @return IDocument The document the change was made in, or null if the context is detached
+	 * 			from it
+	 */
+	public IDocument getDocument() {
+		return this.document;
+	}
+
+	/**
+	 * Sets the progress monitor of the job the change is evaluated by
+	 * @param progressMonitor The job's progress monitor
+	 */
+	public void setProgressMonitor(IProgressMonitor progressMonitor) {
+		this.progressMonitor = progressMonitor;
+	}
+
+	/**
+	 * Returns the progress monitor of the job the change is evaluated by. Feature evaluators doing
+	 * long running work should pass it on, or check it for cancellation, so that the work stops
+	 * as soon as a newer change supersedes this one.
+	 * @return IProgressMonitor The job's progress monitor, or a NullProgressMonitor if the change
+	 * 			is not evaluated by a job
+	 */
+	public IProgressMonitor getProgressMonitor() {
+		IProgressMonitor monitor = this.progressMonitor;
+		return monitor == null ? new NullProgressMonitor() : monitor;
+	}
+
+	/**
+	 * @return true if the job the change is evaluated by has been cancelled; false otherwise
+	 */
+	public boolean isCanceled() {
+		IProgressMonitor monitor = this.progressMonitor;
+		return monitor != null && monitor.isCanceled();
+	}
+
+	/**
+	 * @return The kinds of content the change inserts or removes, as a combination of the content
+	 * 			constants
+	 */
+	public int getContentKinds() {
+		if (this.contentKinds == UNKNOWN) {
+			this.contentKinds = classify(this.event);
+		}
+		return this.contentKinds;
+	}
+
+	/**
+	 * @return The line number the change occurred on
+	 * @throws BadLocationException If the change's offset is not within the document, or the
+	 * 			context is detached and the line is not known
+	 */
+	public int getLine() throws BadLocationException {
+		if (this.line == UNKNOWN) {
+			checkAttached();
+			this.line = this.document.getLineOfOffset(this.event.getOffset());
+		}
+		return this.line;
+	}
+
+	/**
+	 * @return The offset of the start of the line the change occurred on
+	 * @throws BadLocationException If the change's offset is not within the document
+	 */
+	public int getLineOffset() throws BadLocationException {
+		if (this.lineOffset == UNKNOWN) {
+			checkAttached();
+			this.lineOffset = this.document.getLineOffset(getLine());
+		}
+		return this.lineOffset;
+	}
+
+	/**
+	 * @return The length of the line the change occurred on, including its line delimiter
+	 * @throws BadLocationException If the change's offset is not within the document
+	 */
+	public int getLineLength() throws BadLocationException {
+		if (this.lineLength == UNKNOWN) {
+			checkAttached();
+			this.lineLength = this.document.getLineLength(getLine());
+		}
+		return this.lineLength;
+	}
+
+	/**
+	 * @return The contents of the line the change occurred on, including its line delimiter
+	 * @throws BadLocationException If the change's offset is not within the document
+	 */
+	public String getLineText() throws BadLocationException {
+		if (this.lineText == null) {
+			checkAttached();
+			this.lineText = this.document.get(getLineOffset(), getLineLength());
+		}
+		return this.lineText;
+	}
+
+	/**
+	 * Checks that line data which is not known yet can be looked up in the document
+	 * @throws BadLocationException If the context is detached from its document
+	 */
+	private void checkAttached() throws BadLocationException {
+		if (this.document == null) {
+			throw new BadLocationException("The line data was not captured with the change");
+		}
+	}
+
+	/**
+	 * @return The contents of the line the change occurred on as they were before the change,
+	 * 			including the line delimiter, or null if they were not captured
+	 */
+	public String getLineTextBeforeChange() {
+		return this.lineTextBeforeChange;
+	}
+}
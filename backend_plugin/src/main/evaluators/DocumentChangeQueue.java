@@ -0,0 +1,227 @@
+package main.evaluators;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+import main.interfaces.BackpressurePolicy;
+
+/**
+ * Bounded queue of captured changes to one document, waiting to be evaluated in the background.
+ * The UI thread offers changes as they are made, and a single drain task at a time takes them off
+ * on a background thread. When the queue is full, the BackpressurePolicy decides whether the UI
+ * thread waits or a waiting change is discarded, so the memory held by changes that could not be
+ * evaluated yet stays bounded however fast the document is edited. Whenever a change is discarded
+ * without being evaluated, under any policy, the queue remembers it until the Evaluator checks,
+ * so that the feature evaluators' state can be reset.
+ *
+ * Under the BLOCK policy the UI thread never waits longer than BLOCK_TIMEOUT_MILLIS for room;
+ * after that the oldest waiting change is discarded as under DROP_OLDEST, so a stalled
+ * background evaluation cannot freeze the editor.
+ */
+public class DocumentChangeQueue {
+
+	/** Longest time, in milliseconds, a change waits for room in the queue under the BLOCK policy */
+	public static final long BLOCK_TIMEOUT_MILLIS = 100;
+
+	/** Changes waiting to be evaluated, oldest first. Guarded by this queue's lock */
+	private final ArrayDeque<DocumentChangeSnapshot> snapshots;
+	/** Flag set while a drain task is scheduled or running. Guarded by this queue's lock */
+	private boolean draining;
+	/** Flag set once the queue no longer accepts changes. Guarded by this queue's lock */
+	private boolean closed;
+	/** Number of changes discarded to make room. Guarded by this queue's lock */
+	private long droppedCount;
+	/** Number of changes replaced by a newer change to the same line. Guarded by this queue's lock */
+	private long collapsedCount;
+	/** Number of times the UI thread had to wait for room. Guarded by this queue's lock */
+	private long blockedCount;
+	/** Number of times waiting for room timed out and a change was discarded. Guarded by this queue's lock */
+	private long blockTimeoutCount;
+	/** Flag set when a change was discarded without being evaluated, until it is consumed. Guarded by this queue's lock */
+	private boolean changeDiscarded;
+	/** Largest number of changes that have been waiting at once. Guarded by this queue's lock */
+	private int maxDepth;
+
+	/**
+	 * Constructs an empty DocumentChangeQueue
+	 */
+	public DocumentChangeQueue() {
+		this.snapshots = new ArrayDeque<DocumentChangeSnapshot>();
+	}
+
+	/**
+	 * Adds a change to the queue, applying the given policy if the queue is full. Under the BLOCK
+	 * policy, waits at most BLOCK_TIMEOUT_MILLIS for room, then discards the oldest waiting change.
+	 * @param snapshot The captured change
+	 * @param capacity The largest number of changes that may wait in the queue
+	 * @param policy What to do when the queue is full
+	 * @return true if the caller has to schedule a drain task; false if one is already scheduled
+	 * 			or the change was not queued
+	 */
+	public boolean offer(DocumentChangeSnapshot snapshot, int capacity, BackpressurePolicy policy) {
+		return offer(snapshot, capacity, policy, BLOCK_TIMEOUT_MILLIS);
+	}
+
+	/**
+	 * Adds a change to the queue, applying the given policy if the queue is full. Under the BLOCK
+	 * policy, waits at most the given time for room, then discards the oldest waiting change.
+	 * @param snapshot The captured change
+	 * @param capacity The largest number of changes that may wait in the queue
+	 * @param policy What to do when the queue is full
+	 * @param blockTimeoutMillis The longest time, in milliseconds, to wait for room under the BLOCK policy
+	 * @return true if the caller has to schedule a drain task; false if one is already scheduled
+	 * 			or the change was not queued
+	 */
+	public synchronized boolean offer(DocumentChangeSnapshot snapshot, int capacity, BackpressurePolicy policy,
+			long blockTimeoutMillis) {
+		if (this.closed) {
+			return false;
+		}
+		capacity = Math.max(1, capacity);
+
+		if (policy == BackpressurePolicy.COLLAPSE && snapshot.getLine() != -1) {
+			Iterator<DocumentChangeSnapshot> waiting = this.snapshots.iterator();
+			while (waiting.hasNext()) {
+				if (waiting.next().getLine() == snapshot.getLine()) {
+					waiting.remove();
+					this.collapsedCount++;
+					this.changeDiscarded = true;
+				}
+			}
+		}
+
+		boolean blocked = false;
+		long deadline = 0;
+		while (this.snapshots.size() >= capacity) {
+			long remaining = blocked ? deadline - System.currentTimeMillis() : blockTimeoutMillis;
+			if (policy == BackpressurePolicy.BLOCK && this.draining && remaining > 0) {
+				if (!blocked) {
+					blocked = true;
+					deadline = System.currentTimeMillis() + blockTimeoutMillis;
+					this.blockedCount++;
+				}
+				try {
+					wait(remaining);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					this.droppedCount++;
+					this.changeDiscarded = true;
+					return false;
+				}
+				if (this.closed) {
+					return false;
+				}
+			} else {
+				this.snapshots.poll();
+				this.droppedCount++;
+				this.changeDiscarded = true;
+				if (blocked) {
+					this.blockTimeoutCount++;
+				}
+			}
+		}
+
+		this.snapshots.add(snapshot);
+		this.maxDepth = Math.max(this.maxDepth, this.snapshots.size());
+		if (this.draining) {
+			return false;
+		}
+		this.draining = true;
+		return true;
+	}
+
+	/**
+	 * Takes the oldest change off the queue. Called by the drain task. If the queue is empty, the
+	 * drain task is considered finished, and the next change offered schedules a new one.
+	 * @return The oldest waiting change, or null if there is none
+	 */
+	public synchronized DocumentChangeSnapshot poll() {
+		DocumentChangeSnapshot snapshot = this.snapshots.poll();
+		if (snapshot == null) {
+			this.draining = false;
+		} else {
+			notifyAll();
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Discards all waiting changes and forgets the drain task. Used when the drain task could not
+	 * be scheduled.
+	 */
+	public synchronized void abandon() {
+		if (!this.snapshots.isEmpty()) {
+			this.droppedCount += this.snapshots.size();
+			this.changeDiscarded = true;
+		}
+		this.snapshots.clear();
+		this.draining = false;
+		notifyAll();
+	}
+
+	/**
+	 * Discards all waiting changes and stops accepting new ones. Any thread waiting for room is
+	 * released.
+	 */
+	public synchronized void close() {
+		this.closed = true;
+		this.snapshots.clear();
+		notifyAll();
+	}
+
+	/**
+	 * Checks whether a change was discarded without being evaluated since the last time this was
+	 * checked: dropped to make room, replaced by a newer change to the same line, not queued
+	 * because waiting for room was interrupted, or abandoned. The feature evaluators then missed a
+	 * change, and their state must be reset.
+	 * @return true if a change was discarded; false otherwise
+	 */
+	public synchronized boolean consumeChangeDiscarded() {
+		boolean discarded = this.changeDiscarded;
+		this.changeDiscarded = false;
+		return discarded;
+	}
+
+	/**
+	 * @return The number of changes currently waiting to be evaluated
+	 */
+	public synchronized int getDepth() {
+		return this.snapshots.size();
+	}
+
+	/**
+	 * @return The largest number of changes that have been waiting to be evaluated at once
+	 */
+	public synchronized int getMaxDepth() {
+		return this.maxDepth;
+	}
+
+	/**
+	 * @return The number of changes discarded without being evaluated to make room in the queue
+	 */
+	public synchronized long getDroppedCount() {
+		return this.droppedCount;
+	}
+
+	/**
+	 * @return The number of changes replaced by a newer change to the same line
+	 */
+	public synchronized long getCollapsedCount() {
+		return this.collapsedCount;
+	}
+
+	/**
+	 * @return The number of times a change had to wait for room in the queue
+	 */
+	public synchronized long getBlockedCount() {
+		return this.blockedCount;
+	}
+
+	/**
+	 * @return The number of times waiting for room timed out, and the oldest waiting change was
+	 * 			discarded instead
+	 */
+	public synchronized long getBlockTimeoutCount() {
+		return this.blockTimeoutCount;
+	}
+}
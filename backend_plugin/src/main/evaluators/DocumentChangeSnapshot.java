@@ -0,0 +1,186 @@
+package main.evaluators;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+
+/**
+ * An immutable copy of the information carried by a DocumentEvent. Snapshots are taken on the UI
+ * thread when a document change is applied, so that the change can be evaluated later on another
+ * thread without holding on to the (mutable) event itself.
+ */
+public final class DocumentChangeSnapshot {
+
+	/** Offset in the document where the change occurred */
+	private final int offset;
+	/** Length of the text that was replaced by the change */
+	private final int length;
+	/** Text that was inserted by the change */
+	private final String text;
+	/** Modification stamp of the document right after the change was applied */
+	private final long modificationStamp;
+	/** Line number the change occurred on, or -1 if it could not be determined */
+	private final int line;
+	/** Offset of the start of the affected line, or -1 if it could not be determined */
+	private final int lineOffset;
+	/** Contents of the affected line right after the change was applied */
+	private final String lineText;
+	/** Contents of the affected line before the change was applied, or null if they were not captured */
+	private final String lineTextBeforeChange;
+	/** Time, in milliseconds, at which the user made the change */
+	private final long timeStamp;
+
+	/**
+	 * Constructs a DocumentChangeSnapshot
+	 * @param offset Offset in the document where the change occurred
+	 * @param length Length of the text that was replaced by the change
+	 * @param text Text that was inserted by the change
+	 * @param modificationStamp Modification stamp of the document right after the change
+	 * @param line Line number the change occurred on
+	 * @param lineOffset Offset of the start of the affected line
+	 * @param lineText Contents of the affected line right after the change
+	 * @param lineTextBeforeChange Contents of the affected line before the change, or null
+	 * @param timeStamp Time, in milliseconds, at which the user made the change
+	 */
+	private DocumentChangeSnapshot(int offset, int length, String text, long modificationStamp,
+			int line, int lineOffset, String lineText, String lineTextBeforeChange, long timeStamp) {
+		this.offset = offset;
+		this.length = length;
+		this.text = text;
+		this.modificationStamp = modificationStamp;
+		this.line = line;
+		this.lineOffset = lineOffset;
+		this.lineText = lineText;
+		this.lineTextBeforeChange = lineTextBeforeChange;
+		this.timeStamp = timeStamp;
+	}
+
+	/**
+	 * Captures a snapshot of the given change. Must be called while the document is in the state
+	 * the change describes (i.e. from within IDocumentListener.documentChanged)
+	 * @param context The shared information about the change
+	 * @param timeStamp The time, in milliseconds, at which the user made the change
+	 * @return An immutable snapshot of the change
+	 */
+	public static DocumentChangeSnapshot capture(DocumentChangeContext context, long timeStamp) {
+		DocumentEvent event = context.getEvent();
+		String text = event.getText() == null ? "" : event.getText();
+		int line = -1;
+		int lineOffset = -1;
+		String lineText = "";
+		try {
+			line = context.getLine();
+			lineOffset = context.getLineOffset();
+			lineText = context.getLineText();
+		} catch (BadLocationException e) {
+		}
+		return new DocumentChangeSnapshot(event.getOffset(), event.getLength(), text,
+				event.getModificationStamp(), line, lineOffset, lineText,
+				context.getLineTextBeforeChange(), timeStamp);
+	}
+
+	/**
+	 * Checks whether the given document has been modified since this snapshot was taken. Documents
+	 * that do not provide modification stamps are never considered stale.
+	 * @param document The document the snapshot was taken from
+	 * @return true if the document has changed since the snapshot was taken; false otherwise
+	 */
+	public boolean isStale(IDocument document) {
+		if (this.modificationStamp == IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP ||
+				!(document instanceof IDocumentExtension4)) {
+			return false;
+		}
+		return ((IDocumentExtension4) document).getModificationStamp() != this.modificationStamp;
+	}
+
+	/**
+	 * Recreates a DocumentEvent describing this change so it can be passed to feature evaluators
+	 * @param document The document the snapshot was taken from
+	 * @return A DocumentEvent equivalent to the captured event
+	 */
+	public DocumentEvent toDocumentEvent(IDocument document) {
+		return new DocumentEvent(document, this.offset, this.length, this.text);
+	}
+
+	/**
+	 * Recreates the shared context of this change from the captured line data, detached from the
+	 * document. Feature evaluators running on another thread can only read the line contents
+	 * before and after the change that were captured here; the document itself, which the UI
+	 * thread may be modifying, is not reachable through the context. The document is only used
+	 * as the source of the recreated event, and must not be read from it.
+	 * @param document The document the snapshot was taken from
+	 * @return A detached DocumentChangeContext with the line data of the captured change
+	 */
+	public DocumentChangeContext toContext(IDocument document) {
+		if (this.line == -1) {
+			return new DocumentChangeContext(null, toDocumentEvent(document));
+		}
+		return new DocumentChangeContext(null, toDocumentEvent(document), this.line,
+				this.lineOffset, this.lineText, this.lineTextBeforeChange);
+	}
+
+	/**
+	 * @return The offset in the document where the change occurred
+	 */
+	public int getOffset() {
+		return this.offset;
+	}
+
+	/**
+	 * @return The length of the text that was replaced by the change
+	 */
+	public int getLength() {
+		return this.length;
+	}
+
+	/**
+	 * @return The text that was inserted by the change
+	 */
+	public String getText() {
+		return this.text;
+	}
+
+	/**
+	 * @return The modification stamp of the document right after the change was applied
+	 */
+	public long getModificationStamp() {
+		return this.modificationStamp;
+	}
+
+	/**
+	 * @return The line number the change occurred on, or -1 if it could not be determined
+	 */
+	public int getLine() {
+		return this.line;
+	}
+
+	/**
+	 * @return The contents of the affected line right after the change was applied
+	 */
+	public String getLineText() {
+		return this.lineText;
+	}
+
+	/**
+	 * @return The offset of the start of the affected line, or -1 if it could not be determined
+	 */
+	public int getLineOffset() {
+		return this.lineOffset;
+	}
+
+	/**
+	 * @return The contents of the affected line before the change was applied, or null if they
+	 * 			were not captured
+	 */
+	public String getLineTextBeforeChange() {
+		return this.lineTextBeforeChange;
+	}
+
+	/**
+	 * @return The time, in milliseconds, at which the user made the change
+	 */
+	public long getTimeStamp() {
+		return this.timeStamp;
+	}
+}
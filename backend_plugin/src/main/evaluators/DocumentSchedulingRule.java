@@ -0,0 +1,41 @@
+package main.evaluators;
+
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+
+/**
+ * Scheduling rule shared by all evaluation jobs of one document. Jobs holding the rule of the same
+ * document never run at the same time, so evaluations of a document never overlap, while jobs of
+ * different documents can run side by side on the job manager's worker threads.
+ */
+public class DocumentSchedulingRule implements ISchedulingRule {
+
+	/** The Evaluator of the document this rule belongs to */
+	private final Evaluator evaluator;
+
+	/**
+	 * Constructs a DocumentSchedulingRule
+	 * @param evaluator The Evaluator of the document this rule belongs to
+	 */
+	public DocumentSchedulingRule(Evaluator evaluator) {
+		this.evaluator = evaluator;
+	}
+
+	/**
+	 * @param rule The rule to check
+	 * @return true if the given rule is this rule; false otherwise
+	 */
+	@Override
+	public boolean contains(ISchedulingRule rule) {
+		return rule == this;
+	}
+
+	/**
+	 * @param rule The rule to check
+	 * @return true if the given rule belongs to the same document; false otherwise
+	 */
+	@Override
+	public boolean isConflicting(ISchedulingRule rule) {
+		return rule instanceof DocumentSchedulingRule &&
+				((DocumentSchedulingRule) rule).evaluator.getDocument() == this.evaluator.getDocument();
+	}
+}
@@ -0,0 +1,19 @@
+package main.evaluators;
+
+/**
+ * The tiers that feature evaluators are scheduled in when document changes are evaluated on the
+ * UI thread. Each feature evaluator declares its tier in its constructor.
+ */
+public enum EvaluationTier {
+
+	/** Cheap, line-local checks that are run on each change as it is applied */
+	INLINE,
+
+	/**
+	 * Cheap checks that are run on each change as it is applied, plus an expensive pass (e.g.
+	 * parsing the whole document) that is run in a background job over the latest change once the
+	 * editor has been idle for a while. A deferred pass is cancelled when a newer change to the
+	 * document supersedes it.
+	 */
+	DEFERRED
+}
@@ -1,15 +1,36 @@
 package main.evaluators;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+import org.eclipse.jface.text.link.LinkedModeModel;
 import org.eclipse.jface.text.source.IAnnotationModel;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.texteditor.ITextEditor;
 
+import main.activation.Activator;
+import main.interfaces.EvaluationSettings;
+import main.interfaces.ExecutionMode;
+import main.interfaces.FeatureID;
 import main.listeners.AnnotationModelListener;
 import main.listeners.DocumentChangesListener;
+import main.listeners.DocumentRewriteSessionListener;
 
 /**
  * The Evaluator is designed to control all of the evaluation classes. The Evaluator creates a TrackerController, which
@@ -23,45 +44,180 @@ import main.listeners.DocumentChangesListener;
  */
 public class Evaluator {
 
+	/**
+	 * The feature evaluator of each feature, keyed by feature ID, in dispatch order. Feature
+	 * evaluators hold no per-document state, so these instances are shared by all Evaluators; each
+	 * Evaluator passes its own FeatureEvaluatorState along with every event.
+	 */
+	private static final Map<String, FeatureEvaluator> SHARED_FEATURE_EVALUATORS;
+	static {
+		Map<String, FeatureEvaluator> shared = new LinkedHashMap<String, FeatureEvaluator>();
+		shared.put(FeatureID.BLOCK_COMMENT_FEATURE_ID, new BlockCommentEvaluator(null));
+		shared.put(FeatureID.REMOVE_IMPORT_FEATURE_ID, new RemoveImportEvaluator(null));
+		shared.put(FeatureID.ADD_IMPORT_FEATURE_ID, new AddImportEvaluator(null));
+		shared.put(FeatureID.CORRECT_INDENTATION_FEATURE_ID, new CorrectIndentationEvaluator(null));
+		shared.put(FeatureID.GETTER_SETTER_FEATURE_ID, new GetterSetterEvaluator(null));
+		shared.put(FeatureID.TRAILING_WHITE_SPACE_FEATURE_ID, new TrailingWhiteSpaceEvaluator(null));
+		SHARED_FEATURE_EVALUATORS = Collections.unmodifiableMap(shared);
+	}
+
 	/** Manages all evaluators */
 	private EvaluatorManager manager;
-	/** List of all featureEvaluators */
+	/** State the feature evaluators have built up from this document's events */
+	private FeatureEvaluatorState featureState;
+	/** List of all featureEvaluators. Only modified on the UI thread; copied on write so it can be read from any thread */
 	private List<FeatureEvaluator> featureEvaluators;
 
+	// The dispatch tables below are never modified once built. Adding or removing a feature
+	// evaluator builds new tables, while holding this Evaluator's lock, and replaces the old
+	// ones. Each table is published through a volatile write, so a thread reading a table sees
+	// fully constructed feature evaluators in it. An event being evaluated keeps using the
+	// tables it started with, and the loops over them need no checks for disabled features.
+
+	/** Feature evaluators interested in document changes, before they are applied */
+	private volatile FeatureEvaluator[] beforeChangeEvaluators;
+	/** Feature evaluators interested in document changes, after they are applied */
+	private volatile FeatureEvaluator[] documentChangeEvaluators;
+	/** Feature evaluators interested in applied document changes that also evaluate them once the editor is idle */
+	private volatile FeatureEvaluator[] deferredDocumentChangeEvaluators;
+	/** Feature evaluators interested in annotation model changes */
+	private volatile FeatureEvaluator[] annotationModelEvaluators;
+	/** Feature evaluators interested in the document being saved */
+	private volatile FeatureEvaluator[] saveEvaluators;
+
 	/** Document this evaluator is attached to */
 	private IDocument document;
+	/** Workspace file the document was opened from, or null if it is not a workspace file */
+	private IFile file;
 	/** Annotation model this evaluator is attached to */
 	private IAnnotationModel annotationModel;
+	/** Classification of the annotation model's annotations, shared by all feature evaluators */
+	private AnnotationClassifier annotationClassifier;
 
 	/** Listener for document changes */
 	private DocumentChangesListener documentChangesListener;
 	/** LIstener for annotation model changes */
 	private AnnotationModelListener annotationModelListener;
+	/** Listener for rewrite sessions (formatting, refactorings, etc.) on the document */
+	private DocumentRewriteSessionListener rewriteSessionListener;
+
+	/** Flag set while a rewrite session is active on the document */
+	private volatile boolean inRewriteSession;
+	/** Flag set while none of the editor windows showing the document are visible */
+	private volatile boolean hidden;
+	/** Number of editor windows showing the document */
+	private int editorCount;
+	/** Number of editor windows showing the document that are currently visible */
+	private int visibleEditorCount;
+	/** Flag set when evaluation was skipped and feature evaluator state must be reset before resuming */
+	private volatile boolean rebaselineRequired;
+	/** Context built before the change being applied to the document, shared with its evaluation afterwards */
+	private DocumentChangeContext pendingContext;
+	/** Scheduling rule held by this document's evaluation jobs, so that they never overlap */
+	private DocumentSchedulingRule schedulingRule;
+	/** Latest change waiting for the deferred feature evaluators, or null if there is none */
+	private DocumentChangeContext deferredContext;
+	/** Deferred feature evaluators that asked for a deferred pass over the waiting change */
+	private FeatureEvaluator[] deferredEvaluators;
+	/** Time, in milliseconds, at which the user made the change waiting for the deferred feature evaluators */
+	private long deferredTimeStamp;
+	/** Modification stamp of the document right after the change waiting for the deferred feature evaluators */
+	private long deferredModificationStamp;
+	/** Hands the waiting change to a job once the editor has been idle for long enough */
+	private Runnable deferredEvaluationTask;
+	/** Job running the deferred feature evaluators on the latest change, or null if there is none */
+	private Job deferredEvaluationJob;
+	/** Number of times the feature evaluator state has been reset. Only updated on the UI thread */
+	private volatile int rebaselineGeneration;
+	/** Serial queue of this document's changes, created on the UI thread by the first change evaluated in the background */
+	private SerialExecutor serialExecutor;
+	/** Bounded queue of captured changes waiting to be evaluated in the background */
+	private DocumentChangeQueue changeQueue;
+	/** Number of applied document changes evaluated. Only updated on the UI thread */
+	private long documentChangeCount;
+	/** Number of calls made to feature evaluators for applied document changes. Only updated on the UI thread */
+	private long featureEvaluatorCallCount;
+	/** Number of calls to feature evaluators skipped because their content filter did not match. Only updated on the UI thread */
+	private long filteredFeatureEvaluatorCallCount;
+	/** Flag set once this Evaluator has been stopped and detached from its document */
+	private volatile boolean stopped;
+	/** Watchdog deciding when a feature evaluator is quarantined for this document for being too slow */
+	private LatencyWatchdog latencyWatchdog;
 
 	/**
-	 * Constructs an Evaluator that evaluates the given IEditorPart window
-	 * under the given EvaluationManager em
+	 * Constructs an Evaluator that evaluates the document of the given IEditorPart window
+	 * under the given EvaluationManager em. The Evaluator is shared by all editor windows that
+	 * show the document, which are attached to it through editorAttached(boolean)
 	 * @param em The EvaluatorManager object tracking all Evaluator instances
 	 * @param textEditor The document editor window to add an evaluator to
 	 */
 	public Evaluator(EvaluatorManager em, ITextEditor textEditor) {
 		this.manager = em;
-		this.featureEvaluators = new ArrayList<FeatureEvaluator>();
+		this.featureEvaluators = new CopyOnWriteArrayList<FeatureEvaluator>();
+		this.featureState = new FeatureEvaluatorState();
+		this.annotationClassifier = new AnnotationClassifier();
+		this.latencyWatchdog = new LatencyWatchdog();
+		this.schedulingRule = new DocumentSchedulingRule(this);
+		this.changeQueue = new DocumentChangeQueue();
+		this.deferredEvaluationTask = () -> scheduleDeferredEvaluation();
 		this.initializeListeners(textEditor);
 		this.initializeFeatureEvaluators();
 	}
 
 	/**
-	 * Creates the feature evaluators for each feature and adds them to this
-	 * Evaluator's list of feature evaluators
+	 * Adds the shared feature evaluator of each active feature to this Evaluator's list of feature
+	 * evaluators. Features that are disabled or retired are left out.
 	 */
 	private void initializeFeatureEvaluators() {
-		this.featureEvaluators.add(new BlockCommentEvaluator(this.document));
-		this.featureEvaluators.add(new RemoveImportEvaluator());
-		this.featureEvaluators.add(new AddImportEvaluator(this.document));
-		this.featureEvaluators.add(new CorrectIndentationEvaluator(this.document));
-		this.featureEvaluators.add(new GetterSetterEvaluator(this.document));
-		this.featureEvaluators.add(new TrailingWhiteSpaceEvaluator(this.document));
+		List<FeatureEvaluator> active = new ArrayList<FeatureEvaluator>();
+		for (Map.Entry<String, FeatureEvaluator> shared : SHARED_FEATURE_EVALUATORS.entrySet()) {
+			if (this.manager.isFeatureActive(shared.getKey())) {
+				active.add(shared.getValue());
+			}
+		}
+		this.featureEvaluators.addAll(active);
+		buildDispatchTables();
+	}
+
+	/**
+	 * Builds, for each kind of event, the array of feature evaluators interested in it, so that
+	 * each event is only passed to the feature evaluators that consume it
+	 */
+	private void buildDispatchTables() {
+		this.beforeChangeEvaluators = interestedEvaluators(FeatureEvaluator.BEFORE_DOCUMENT_CHANGE);
+		this.documentChangeEvaluators = interestedEvaluators(FeatureEvaluator.DOCUMENT_CHANGE);
+		this.deferredDocumentChangeEvaluators = evaluatorsInTier(this.documentChangeEvaluators, EvaluationTier.DEFERRED);
+		this.annotationModelEvaluators = interestedEvaluators(FeatureEvaluator.ANNOTATION_MODEL_CHANGE);
+		this.saveEvaluators = interestedEvaluators(FeatureEvaluator.SAVE);
+	}
+
+	/**
+	 * @param eventKind One of the FeatureEvaluator interest constants
+	 * @return The feature evaluators interested in the given kind of event, in list order
+	 */
+	private FeatureEvaluator[] interestedEvaluators(int eventKind) {
+		List<FeatureEvaluator> interested = new ArrayList<FeatureEvaluator>();
+		for (FeatureEvaluator featureEvaluator : this.featureEvaluators) {
+			if (featureEvaluator.isInterestedIn(eventKind)) {
+				interested.add(featureEvaluator);
+			}
+		}
+		return interested.toArray(new FeatureEvaluator[interested.size()]);
+	}
+
+	/**
+	 * @param evaluators The feature evaluators to choose from
+	 * @param tier The tier to choose feature evaluators of
+	 * @return The given feature evaluators that are scheduled in the given tier, in the same order
+	 */
+	private FeatureEvaluator[] evaluatorsInTier(FeatureEvaluator[] evaluators, EvaluationTier tier) {
+		List<FeatureEvaluator> inTier = new ArrayList<FeatureEvaluator>();
+		for (FeatureEvaluator featureEvaluator : evaluators) {
+			if (featureEvaluator.getTier() == tier) {
+				inTier.add(featureEvaluator);
+			}
+		}
+		return inTier.toArray(new FeatureEvaluator[inTier.size()]);
 	}
 
 	/**
@@ -74,6 +230,7 @@ public class Evaluator {
 		// Get the document stored inside the text editor window
 		IDocument doc = textEditor.getDocumentProvider().getDocument(textEditor.getEditorInput());
 		this.document = doc;
+		this.file = textEditor.getEditorInput().getAdapter(IFile.class);
 
 		// Add a DocumentChangesTracker to the document
 		DocumentChangesListener docListener = new DocumentChangesListener(this);
@@ -86,6 +243,170 @@ public class Evaluator {
 		this.annotationModel = textEditor.getDocumentProvider().getAnnotationModel(textEditor.getEditorInput());
 		// Add a AnnotationModelListener to the AnnotationModel
 		this.annotationModel.addAnnotationModelListener(this.annotationModelListener);
+
+		// Add a DocumentRewriteSessionListener to the document, if it supports rewrite sessions
+		if (doc instanceof IDocumentExtension4) {
+			IDocumentExtension4 extension = (IDocumentExtension4) doc;
+			this.rewriteSessionListener = new DocumentRewriteSessionListener(this);
+			extension.addDocumentRewriteSessionListener(this.rewriteSessionListener);
+			this.inRewriteSession = extension.getActiveRewriteSession() != null;
+			this.rebaselineRequired = this.inRewriteSession;
+		}
+	}
+
+	/**
+	 * Checks whether evaluation is currently paused for this Evaluator's document. Evaluation is
+	 * paused during rewrite sessions (formatting, organizing imports, refactorings) and while linked
+	 * mode is active (template and linked name editing), since the changes made during those are
+	 * not typed by the user. It is also paused while the editor window is hidden, since the user
+	 * cannot see any changes made to it.
+	 * @return true if evaluation is currently paused; false otherwise
+	 */
+	public boolean isEvaluationSuspended() {
+		return this.hidden || this.inRewriteSession || LinkedModeModel.hasInstalledModel(this.document);
+	}
+
+	/**
+	 * Records that an event was skipped without being evaluated, so that the feature evaluators
+	 * are re-baselined before the next event is evaluated. May be called from any thread.
+	 */
+	public void evaluationSkipped() {
+		this.rebaselineRequired = true;
+	}
+
+	/**
+	 * Called when another editor window starts showing this Evaluator's document. Fails if the
+	 * Evaluator has already been stopped, because the last window showing the document was
+	 * detached first; the window then needs a new Evaluator.
+	 * @param visible true if the editor window is visible; false if it is hidden
+	 * @return true if the editor window was attached; false if this Evaluator has been stopped
+	 */
+	public synchronized boolean editorAttached(boolean visible) {
+		if (this.stopped) {
+			return false;
+		}
+		this.editorCount++;
+		if (visible) {
+			this.visibleEditorCount++;
+		}
+		setVisible(this.visibleEditorCount > 0);
+		return true;
+	}
+
+	/**
+	 * Called when an editor window stops showing this Evaluator's document. Once no window shows
+	 * the document any more, the Evaluator is stopped, atomically with respect to another window
+	 * being attached.
+	 * @param visible true if the editor window was visible; false if it was hidden
+	 * @return The number of editor windows still showing the document; 0 if this Evaluator has
+	 * 			been stopped
+	 */
+	public synchronized int editorDetached(boolean visible) {
+		this.editorCount--;
+		if (visible) {
+			this.visibleEditorCount--;
+		}
+		if (this.editorCount > 0) {
+			setVisible(this.visibleEditorCount > 0);
+		} else {
+			stop();
+		}
+		return this.editorCount;
+	}
+
+	/**
+	 * Called when an editor window showing this Evaluator's document is hidden or shown again
+	 * @param visible true if the editor window is now visible; false if it is now hidden
+	 */
+	public synchronized void editorVisibilityChanged(boolean visible) {
+		this.visibleEditorCount += visible ? 1 : -1;
+		setVisible(this.visibleEditorCount > 0);
+	}
+
+	/**
+	 * Pauses evaluation while none of the editor windows showing the document are visible.
+	 * Nothing is done when a window is shown again; the feature evaluators are re-baselined once
+	 * the next event arrives, so windows that are only flicked past cost nothing.
+	 * @param visible true if any editor window showing the document is visible; false otherwise
+	 */
+	private void setVisible(boolean visible) {
+		if (visible == !this.hidden) {
+			return;
+		}
+		if (!visible) {
+			this.documentChangesListener.flushPendingChange();
+			this.rebaselineRequired = true;
+		}
+		this.hidden = !visible;
+	}
+
+	/**
+	 * @return true if any editor window showing the document is visible; false otherwise
+	 */
+	public boolean isVisible() {
+		return !this.hidden;
+	}
+
+	/**
+	 * Checks whether the current event should be skipped because evaluation is paused. When
+	 * evaluation resumes, the feature evaluators are re-baselined once before the first event
+	 * is evaluated.
+	 * @return true if the current event should be skipped; false otherwise
+	 */
+	private boolean skipSuspendedEvaluation() {
+		if (isEvaluationSuspended()) {
+			this.rebaselineRequired = true;
+			return true;
+		}
+		if (this.rebaselineRequired) {
+			rebaseline();
+		}
+		return false;
+	}
+
+	/**
+	 * Called when a rewrite session starts on the document. Evaluates any change the user made
+	 * before the session started, then pauses evaluation until the session stops.
+	 */
+	public void rewriteSessionStarted() {
+		this.documentChangesListener.flushPendingChange();
+		this.inRewriteSession = true;
+		this.rebaselineRequired = true;
+	}
+
+	/**
+	 * Called when a rewrite session stops on the document. Resumes evaluation, re-baselining
+	 * the feature evaluators once for the whole session.
+	 */
+	public void rewriteSessionStopped() {
+		this.inRewriteSession = false;
+		if (!isEvaluationSuspended()) {
+			rebaseline();
+		}
+	}
+
+	/**
+	 * Resets the state that each feature evaluator built up from earlier events, and brings the
+	 * annotation based state up to date with the annotation model. Used after a stretch of
+	 * events that were not evaluated, so that stale state does not cause spurious suggestions.
+	 * Feature evaluators quarantined for this document are given another chance, since what made
+	 * them slow (e.g. a huge paste) may be gone.
+	 */
+	private void rebaseline() {
+		this.rebaselineRequired = false;
+		this.rebaselineGeneration++;
+		restoreQuarantinedFeatures();
+		for (FeatureEvaluator featureEvaluator : this.featureEvaluators) {
+			featureEvaluator.rebaseline(this.featureState);
+		}
+
+		// Only bring the annotation state up to date; nothing the user typed is being
+		// evaluated here, so no features are suggested
+		this.annotationClassifier.classifyAll(this.annotationModel);
+		for (FeatureEvaluator featureEvaluator : this.annotationModelEvaluators) {
+			featureEvaluator.evaluateAnnotationModelChanges(this.annotationModel, this.annotationClassifier,
+					this.featureState);
+		}
 	}
 
 	/**
@@ -93,20 +414,403 @@ public class Evaluator {
 	 * @param event The document change data
 	 */
 	public void evaluateDocumentChanges(DocumentEvent event) {
-		for (FeatureEvaluator featureEvaluator : this.featureEvaluators) {
-			if (featureEvaluator.evaluateDocumentChanges(event)) {
+		evaluateDocumentChanges(event, System.currentTimeMillis());
+	}
+
+	/**
+	 * Checks all evaluation functions after a document change is applied. The change is classified
+	 * once, and only passed to the feature evaluators whose content filter matches it. Every
+	 * feature evaluator evaluates the change right away; deferred ones also evaluate the latest
+	 * change once the editor is idle. When asynchronous evaluation is turned on, a snapshot of the
+	 * change is handed to the EvaluatorManager's background worker instead, where the feature
+	 * evaluators are run; the deferred pass is scheduled the same way either way.
+	 * @param event The document change data
+	 * @param timeStamp The time, in milliseconds, at which the user made the change
+	 */
+	public void evaluateDocumentChanges(DocumentEvent event, long timeStamp) {
+		DocumentChangeContext context = DocumentChangeContext.afterChange(this.pendingContext, this.document, event);
+		this.pendingContext = null;
+		if (skipSuspendedEvaluation()) {
+			return;
+		}
+		int contentKinds = context.getContentKinds();
+		countFeatureEvaluatorCalls(contentKinds);
+
+		if (this.manager.getSettings().isAsynchronousEvaluation()) {
+			DocumentChangeSnapshot snapshot = DocumentChangeSnapshot.capture(context, timeStamp);
+			boolean drainNeeded = this.changeQueue.offer(snapshot, getSettings().getEventQueueCapacity(),
+					getSettings().getBackpressurePolicy());
+
+			// The feature evaluators missed a change discarded by the backpressure policy, so their
+			// state no longer matches the document
+			if (this.changeQueue.consumeChangeDiscarded()) {
+				rebaseline();
+			}
+			if (drainNeeded) {
+				scheduleDrain();
+			}
+		} else {
+			runDocumentChangeEvaluators(this.documentChangeEvaluators, context, timeStamp, false);
+		}
+		FeatureEvaluator[] evaluators = evaluatorsNeedingDeferredPass(context);
+		if (evaluators.length > 0) {
+			deferEvaluation(evaluators, context, timeStamp);
+		}
+	}
+
+	/**
+	 * Asks the deferred feature evaluators whose content filter matches an applied document change
+	 * whether they need a deferred pass over it. Called on the UI thread for every change, so the
+	 * document is only copied for a deferred pass when one of them actually needs it.
+	 * @param context The shared information about the change
+	 * @return The deferred feature evaluators that need a deferred pass over the change
+	 */
+	private FeatureEvaluator[] evaluatorsNeedingDeferredPass(DocumentChangeContext context) {
+		FeatureEvaluator[] evaluators = this.deferredDocumentChangeEvaluators;
+		if (evaluators.length == 0) {
+			return evaluators;
+		}
+		int contentKinds = context.getContentKinds();
+		List<FeatureEvaluator> needing = new ArrayList<FeatureEvaluator>();
+		for (FeatureEvaluator featureEvaluator : evaluators) {
+			if (featureEvaluator.matchesContent(contentKinds) &&
+					featureEvaluator.needsDeferredEvaluation(context, this.featureState)) {
+				needing.add(featureEvaluator);
+			}
+		}
+		return needing.toArray(new FeatureEvaluator[needing.size()]);
+	}
+
+	/**
+	 * Runs the given feature evaluators whose content filter matches an applied document change,
+	 * and notifies the EvaluatorManager of any features triggered. Must be called on the UI thread.
+	 * @param evaluators The feature evaluators to run
+	 * @param context The shared information about the change
+	 * @param timeStamp The time, in milliseconds, at which the user made the change
+	 * @param deferred true to run the feature evaluators' deferred pass over the change; false to
+	 * 			run their evaluation of each change
+	 */
+	private void runDocumentChangeEvaluators(FeatureEvaluator[] evaluators, DocumentChangeContext context,
+			long timeStamp, boolean deferred) {
+		int contentKinds = context.getContentKinds();
+		for (FeatureEvaluator featureEvaluator : evaluators) {
+			if (!featureEvaluator.matchesContent(contentKinds)) {
+				continue;
+			}
+			long startTime = System.nanoTime();
+			boolean triggered = deferred ?
+					featureEvaluator.evaluateDeferredChanges(context, this.featureState, timeStamp) :
+					featureEvaluator.evaluateDocumentChanges(context, this.featureState, timeStamp);
+			checkLatency(featureEvaluator, startTime);
+			if (triggered) {
 				this.manager.notifyFeatureSuggestion(featureEvaluator.getFeatureID());
 			}
 		}
 	}
 
 	/**
-	 * Checks all evaluation functions before a document change is applied
+	 * Schedules the deferred pass of the given feature evaluators over the given change, once the
+	 * document has not changed for the deferred evaluation delay. A change that is still waiting
+	 * is superseded and dropped, and the job of one that is already being evaluated is cancelled.
+	 * A waiting change is also dropped, when its timer fires, if a later change needed no deferred
+	 * pass. Without a UI thread timer, or with no delay, the pass is run right away.
+	 * @param evaluators The deferred feature evaluators that need a deferred pass over the change
+	 * @param context The shared information about the change
+	 * @param timeStamp The time, in milliseconds, at which the user made the change
+	 */
+	private void deferEvaluation(FeatureEvaluator[] evaluators, DocumentChangeContext context, long timeStamp) {
+		Display display = Display.getCurrent();
+		int delay = getSettings().getDeferredEvaluationDelay();
+		if (display == null || delay == 0) {
+			runDocumentChangeEvaluators(evaluators, context, timeStamp, true);
+			return;
+		}
+
+		cancelDeferredEvaluation();
+		this.deferredEvaluators = evaluators;
+		this.deferredContext = context;
+		this.deferredTimeStamp = timeStamp;
+		this.deferredModificationStamp = getModificationStamp();
+		display.timerExec(delay, this.deferredEvaluationTask);
+	}
+
+	/**
+	 * Cancels the job running the deferred feature evaluators, if there is one. A job that has not
+	 * started yet is removed; a running job sees the cancellation through its progress monitor.
+	 */
+	private void cancelDeferredEvaluation() {
+		if (this.deferredEvaluationJob != null) {
+			this.deferredEvaluationJob.cancel();
+			this.deferredEvaluationJob = null;
+		}
+	}
+
+	/**
+	 * Hands the change waiting for the deferred feature evaluators to a system job, once the editor
+	 * has been idle for long enough. Called on the UI thread. The change is dropped if the document
+	 * has been modified since (e.g. by keystrokes still being coalesced) or if evaluation has been
+	 * paused in the meantime. Otherwise the text of the document and the document's feature
+	 * evaluator state are copied here, on the UI thread, and the job only ever reads the copies.
+	 * The jobs of a document share its scheduling rule, so they never overlap.
+	 */
+	private void scheduleDeferredEvaluation() {
+		final DocumentChangeContext context = this.deferredContext;
+		final FeatureEvaluator[] evaluators = this.deferredEvaluators;
+		this.deferredContext = null;
+		this.deferredEvaluators = null;
+		if (context == null || this.stopped || getModificationStamp() != this.deferredModificationStamp ||
+				skipSuspendedEvaluation()) {
+			return;
+		}
+
+		final DocumentChangeContext frozenContext = context.freeze();
+		final FeatureEvaluatorState jobState = new FeatureEvaluatorState(this.featureState);
+		final long timeStamp = this.deferredTimeStamp;
+		final long modificationStamp = this.deferredModificationStamp;
+		final int generation = this.rebaselineGeneration;
+		Job job = new Job("Evaluating document changes") {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				runDeferredEvaluation(evaluators, frozenContext, jobState, timeStamp, modificationStamp, generation,
+						monitor);
+				return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+			}
+		};
+		job.setSystem(true);
+		job.setPriority(Job.DECORATE);
+		job.setRule(this.schedulingRule);
+		this.deferredEvaluationJob = job;
+		job.schedule();
+	}
+
+	/**
+	 * Runs the deferred pass of the deferred feature evaluators on a copy of a change. Called from the change's job,
+	 * which only reads the copied document and state it is given. Back on the UI thread, the state
+	 * the feature evaluators built up is kept, unless the document's state was reset in the
+	 * meantime, and any features triggered are reported, unless the document has been modified
+	 * again in the meantime.
+	 * @param evaluators The deferred feature evaluators to run
+	 * @param context The shared information about the change, over a copy of the document
+	 * @param jobState A copy of the document's feature evaluator state, owned by the job
+	 * @param timeStamp The time, in milliseconds, at which the user made the change
+	 * @param modificationStamp The modification stamp of the document right after the change
+	 * @param generation The number of times the document's state had been reset when it was copied
+	 * @param monitor The progress monitor of the job, checked by feature evaluators for cancellation
+	 */
+	private void runDeferredEvaluation(final FeatureEvaluator[] evaluators, DocumentChangeContext context,
+			final FeatureEvaluatorState jobState, long timeStamp, final long modificationStamp, final int generation,
+			IProgressMonitor monitor) {
+		if (this.stopped || monitor.isCanceled()) {
+			return;
+		}
+
+		context.setProgressMonitor(monitor);
+		int contentKinds = context.getContentKinds();
+		final List<String> triggeredFeatureIDs = new ArrayList<String>();
+		try {
+			for (FeatureEvaluator featureEvaluator : evaluators) {
+				if (monitor.isCanceled()) {
+					return;
+				}
+				if (!featureEvaluator.matchesContent(contentKinds)) {
+					continue;
+				}
+				long startTime = System.nanoTime();
+				boolean triggered = featureEvaluator.evaluateDeferredChanges(context, jobState, timeStamp);
+				checkLatency(featureEvaluator, startTime);
+				if (triggered) {
+					triggeredFeatureIDs.add(featureEvaluator.getFeatureID());
+				}
+			}
+		} catch (RuntimeException e) {
+			logEvaluationFailure(e);
+			this.rebaselineRequired = true;
+			return;
+		}
+
+		if (monitor.isCanceled()) {
+			return;
+		}
+		this.manager.runOnDisplay(() -> {
+			if (this.stopped) {
+				return;
+			}
+			if (this.rebaselineGeneration == generation) {
+				for (FeatureEvaluator featureEvaluator : evaluators) {
+					featureEvaluator.commitDeferredState(jobState, this.featureState);
+				}
+			}
+
+			// Drop results computed against an out-of-date version of the document
+			if (getModificationStamp() == modificationStamp) {
+				for (String featureID : triggeredFeatureIDs) {
+					this.manager.notifyFeatureSuggestion(featureID);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Logs an unexpected failure of a feature evaluator running in the background. The feature
+	 * evaluators' state is reset before the next change is evaluated, since the failure may have
+	 * left it half updated.
+	 * @param e The failure
+	 */
+	private void logEvaluationFailure(RuntimeException e) {
+		Activator activator = Activator.getDefault();
+		if (activator != null) {
+			activator.getLog().log(new Status(IStatus.WARNING, Activator.PLUGIN_ID,
+					"Evaluating a document change in the background failed", e));
+		}
+	}
+
+	/**
+	 * @return The document's current modification stamp, or
+	 * 			IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP if it does not provide one
+	 */
+	private long getModificationStamp() {
+		if (this.document instanceof IDocumentExtension4) {
+			return ((IDocumentExtension4) this.document).getModificationStamp();
+		}
+		return IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+	}
+
+	/**
+	 * Counts the applied document change, and how many feature evaluators it will and will not be
+	 * passed to
+	 * @param contentKinds The kinds of content of the change
+	 */
+	private void countFeatureEvaluatorCalls(int contentKinds) {
+		this.documentChangeCount++;
+		for (FeatureEvaluator featureEvaluator : this.documentChangeEvaluators) {
+			if (featureEvaluator.matchesContent(contentKinds)) {
+				this.featureEvaluatorCallCount++;
+			} else {
+				this.filteredFeatureEvaluatorCallCount++;
+			}
+		}
+	}
+
+	/**
+	 * Schedules a task that evaluates the oldest change waiting in the change queue, and then
+	 * schedules itself again until the queue is empty. Taking one change per task lets other
+	 * documents' changes in between when the executor is shared. If the executor no longer accepts
+	 * tasks, the waiting changes are discarded.
+	 */
+	private void scheduleDrain() {
+		try {
+			getAsynchronousExecutor().execute(() -> {
+				DocumentChangeSnapshot snapshot = this.changeQueue.poll();
+				if (snapshot != null) {
+					try {
+						evaluateSnapshot(snapshot);
+					} finally {
+						scheduleDrain();
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			this.changeQueue.abandon();
+		}
+	}
+
+	/**
+	 * Returns this document's serial queue, which captured document changes are evaluated on. The
+	 * queue hands its tasks to the executor of the execution mode: the EvaluatorManager's single
+	 * background worker, its shared pool, or virtual threads. When the mode changes, the same
+	 * queue switches to the new executor, and only hands it the next change once the current one
+	 * has finished on the old executor. Either way, the changes of this document are evaluated one
+	 * at a time, in order, so the feature evaluators' state is never touched by two background
+	 * threads at once.
+	 * @return Executor The executor to evaluate captured document changes on
+	 */
+	private Executor getAsynchronousExecutor() {
+		ExecutionMode mode = getSettings().getExecutionMode();
+		Executor target = mode == ExecutionMode.SINGLE_WORKER ? this.manager.getEvaluationWorker() :
+				this.manager.getSerialQueueExecutor(mode);
+		if (this.serialExecutor == null) {
+			this.serialExecutor = new SerialExecutor(target);
+		} else if (this.serialExecutor.getPool() != target) {
+			this.serialExecutor.setPool(target);
+		}
+		return this.serialExecutor;
+	}
+
+	/**
+	 * Runs the evaluation functions against a captured document change. Called on the
+	 * background worker, or on this document's serial queue. The feature evaluators are passed a
+	 * context detached from the document, so they only read the line contents captured in the
+	 * snapshot. Every snapshot is evaluated, even if the document has been modified again since it
+	 * was taken, because the feature evaluators build their state up from each change in turn.
+	 * Any features triggered are reported back on the UI thread, but only if the document has not
+	 * been modified again in the meantime.
+	 * @param snapshot The captured document change data
+	 */
+	private void evaluateSnapshot(DocumentChangeSnapshot snapshot) {
+		DocumentChangeContext context = snapshot.toContext(this.document);
+		int contentKinds = context.getContentKinds();
+		final List<String> triggeredFeatureIDs = new ArrayList<String>();
+		try {
+			for (FeatureEvaluator featureEvaluator : this.documentChangeEvaluators) {
+				if (!featureEvaluator.matchesContent(contentKinds)) {
+					continue;
+				}
+				long startTime = System.nanoTime();
+				boolean triggered = featureEvaluator.evaluateDocumentChanges(context, this.featureState,
+						snapshot.getTimeStamp());
+				checkLatency(featureEvaluator, startTime);
+				if (triggered) {
+					triggeredFeatureIDs.add(featureEvaluator.getFeatureID());
+				}
+			}
+		} catch (RuntimeException e) {
+			logEvaluationFailure(e);
+			this.rebaselineRequired = true;
+			return;
+		}
+
+		if (!triggeredFeatureIDs.isEmpty() && !snapshot.isStale(this.document)) {
+			this.manager.runOnDisplay(() -> {
+
+				// Drop results computed against an out-of-date version of the document
+				if (!snapshot.isStale(this.document)) {
+					for (String featureID : triggeredFeatureIDs) {
+						this.manager.notifyFeatureSuggestion(featureID);
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Checks all evaluation functions before a document change is applied. The contents of the
+	 * changed line are captured once here, if any feature evaluator whose content filter matches
+	 * the change needs them, and shared with the evaluation of the applied change.
 	 * @param event The document change data
 	 */
 	public void evaluateDocumentBeforeChange(DocumentEvent event) {
-		for (FeatureEvaluator featureEvaluator : this.featureEvaluators) {
-			if (featureEvaluator.evaluateDocumentBeforeChange(event)) {
+		this.pendingContext = null;
+		if (skipSuspendedEvaluation()) {
+			return;
+		}
+
+		DocumentChangeContext context = new DocumentChangeContext(this.document, event);
+		int contentKinds = context.getContentKinds();
+		for (FeatureEvaluator featureEvaluator : this.beforeChangeEvaluators) {
+			if (featureEvaluator.matchesContent(contentKinds)) {
+				context.captureLineBeforeChange();
+				break;
+			}
+		}
+		this.pendingContext = context;
+		for (FeatureEvaluator featureEvaluator : this.beforeChangeEvaluators) {
+			if (!featureEvaluator.matchesContent(contentKinds)) {
+				continue;
+			}
+			long startTime = System.nanoTime();
+			boolean triggered = featureEvaluator.evaluateDocumentBeforeChange(context, this.featureState);
+			checkLatency(featureEvaluator, startTime);
+			if (triggered) {
 				this.manager.notifyFeatureSuggestion(featureEvaluator.getFeatureID());
 			}
 		}
@@ -117,32 +821,322 @@ public class Evaluator {
 	 * @param model The annotation model attached to the document window
 	 */
 	public void evaluateAnnotationModelChanges(IAnnotationModel model) {
-		for (FeatureEvaluator featureEvaluator : this.featureEvaluators) {
-			if (featureEvaluator.evaluateAnnotationModelChanges(model)) {
+		evaluateAnnotationModelChanges(model, AnnotationModelDelta.worldChange());
+	}
+
+	/**
+	 * Checks all evaluation functions when the annotations of a document window change. The
+	 * changed annotations are classified once, and the classification is shared by every
+	 * feature evaluator.
+	 * @param model The annotation model attached to the document window
+	 * @param delta The annotations that were added, removed, or changed
+	 */
+	public void evaluateAnnotationModelChanges(IAnnotationModel model, AnnotationModelDelta delta) {
+		if (delta.isEmpty() || this.annotationModelEvaluators.length == 0) {
+			return;
+		}
+
+		// Annotation changes skipped here are picked up by the full rescan done when
+		// evaluation resumes
+		if (skipSuspendedEvaluation()) {
+			return;
+		}
+
+		this.annotationClassifier.update(model, delta);
+		for (FeatureEvaluator featureEvaluator : this.annotationModelEvaluators) {
+			long startTime = System.nanoTime();
+			boolean triggered = featureEvaluator.evaluateAnnotationModelChanges(model, this.annotationClassifier,
+					this.featureState);
+			checkLatency(featureEvaluator, startTime);
+			if (triggered) {
 				this.manager.notifyFeatureSuggestion(featureEvaluator.getFeatureID());
 			}
 		}
 	}
 
 	/**
-	 * Checks the RemoveImportEvaluator to see if unused imports exist
-	 * @return true if unused imports exist in the document; false otherwise
+	 * Checks all evaluation functions after this Evaluator's document is saved. Triggered features
+	 * are collected rather than notified, so that a batch of saved documents suggests each feature
+	 * only once.
+	 * @param triggeredFeatureIDs The IDs of the features triggered so far in the batch, to which
+	 * 			the IDs of any features triggered by this document are added
+	 */
+	public void evaluateOnSave(Collection<String> triggeredFeatureIDs) {
+
+		// Make sure annotation changes still waiting to settle are taken into account
+		this.annotationModelListener.flushPendingNotifications();
+
+		// Saves are evaluated even while evaluation is paused (e.g. Save All with hidden editor
+		// windows), so annotation changes skipped in the meantime have to be caught up on first
+		if (this.rebaselineRequired) {
+			rebaseline();
+		}
+
+		for (FeatureEvaluator featureEvaluator : this.saveEvaluators) {
+			long startTime = System.nanoTime();
+			boolean triggered = featureEvaluator.evaluateOnSave(this.featureState);
+			checkLatency(featureEvaluator, startTime);
+			if (triggered) {
+				triggeredFeatureIDs.add(featureEvaluator.getFeatureID());
+			}
+		}
+	}
+
+	/**
+	 * Checks how long a call to a feature evaluator took against the latency budget. A feature
+	 * evaluator that exceeds the budget as many times as the strike limit allows is quarantined
+	 * for this document. May be called from the background worker; the quarantine itself always
+	 * happens on the UI thread.
+	 * @param featureEvaluator The feature evaluator that was called
+	 * @param startTime The value of System.nanoTime() right before the call
+	 */
+	private void checkLatency(final FeatureEvaluator featureEvaluator, long startTime) {
+		final long elapsedMillis = (System.nanoTime() - startTime) / 1000000;
+		if (this.latencyWatchdog.recordCall(featureEvaluator.getFeatureID(), elapsedMillis, getSettings())) {
+			this.manager.runOnDisplay(() -> quarantine(featureEvaluator, elapsedMillis));
+		}
+	}
+
+	/**
+	 * Disables a feature evaluator for this document, and reports it to the EvaluatorManager. The
+	 * feature evaluator receives no further events for this document; other documents are not
+	 * affected. Must be called on the UI thread.
+	 * @param featureEvaluator The feature evaluator to quarantine
+	 * @param elapsedMillis How long, in milliseconds, the call that used up the last strike took
+	 */
+	private void quarantine(FeatureEvaluator featureEvaluator, long elapsedMillis) {
+		synchronized (this) {
+			if (this.stopped || !this.featureEvaluators.remove(featureEvaluator)) {
+				return;
+			}
+			buildDispatchTables();
+		}
+		this.latencyWatchdog.quarantine(featureEvaluator.getFeatureID());
+		this.manager.notifyFeatureQuarantined(featureEvaluator.getFeatureID(), this, elapsedMillis);
+	}
+
+	/**
+	 * Lifts the quarantine of every feature evaluator quarantined for this document, and passes
+	 * the events of this document to them again if their feature is still active. Their state is
+	 * reset by the caller. Must be called on the UI thread.
+	 */
+	private void restoreQuarantinedFeatures() {
+		Set<String> lifted = this.latencyWatchdog.liftQuarantine();
+		if (lifted.isEmpty()) {
+			return;
+		}
+		synchronized (this) {
+			if (this.stopped) {
+				return;
+			}
+			for (String featureID : lifted) {
+				FeatureEvaluator featureEvaluator = SHARED_FEATURE_EVALUATORS.get(featureID);
+				if (featureEvaluator != null && this.manager.isFeatureActive(featureID) &&
+						!hasFeatureEvaluator(featureID)) {
+					this.featureEvaluators.add(featureEvaluator);
+				}
+			}
+			buildDispatchTables();
+		}
+	}
+
+	/**
+	 * Starts passing the events of this document to the feature evaluator of a feature that was
+	 * enabled. Nothing happens if the feature is already evaluated, is no longer active, or its
+	 * feature evaluator was quarantined for this document. May be called from any thread; the
+	 * feature evaluator is added on the UI thread, since its state is brought up to date from the
+	 * annotation classification and the document's state, which are only used there.
+	 * @param featureID The ID of the enabled feature
+	 */
+	public void addFeature(String featureID) {
+		if (Display.getCurrent() == null) {
+			this.manager.runOnDisplay(() -> addFeature(featureID));
+			return;
+		}
+
+		FeatureEvaluator featureEvaluator = SHARED_FEATURE_EVALUATORS.get(featureID);
+		if (this.stopped || featureEvaluator == null || !this.manager.isFeatureActive(featureID) ||
+				isQuarantined(featureID) || hasFeatureEvaluator(featureID)) {
+			return;
+		}
+
+		// Reset whatever state the feature had built up before it was disabled, and bring its
+		// annotation based state up to date, since it missed the annotation model changes made since
+		this.rebaselineGeneration++;
+		featureEvaluator.rebaseline(this.featureState);
+		if (featureEvaluator.isInterestedIn(FeatureEvaluator.ANNOTATION_MODEL_CHANGE)) {
+			featureEvaluator.evaluateAnnotationModelChanges(this.annotationModel, this.annotationClassifier,
+					this.featureState);
+		}
+		synchronized (this) {
+			this.featureEvaluators.add(featureEvaluator);
+			buildDispatchTables();
+		}
+	}
+
+	/**
+	 * Removes the feature evaluator of a feature that was disabled or retired, so that it
+	 * receives no further events for this document. May be called from any thread.
+	 * @param featureID The ID of the disabled or retired feature
 	 */
-	public boolean workspaceResourceSaved() {
-		for (FeatureEvaluator fEval : this.featureEvaluators) {
-			if (fEval instanceof RemoveImportEvaluator) {
-				RemoveImportEvaluator eval = (RemoveImportEvaluator) fEval;
-				return eval.hasActiveUnusedImportStatement();
+	public synchronized void removeFeature(String featureID) {
+		if (this.stopped || !this.featureEvaluators.removeIf(fe -> fe.getFeatureID().equals(featureID))) {
+			return;
+		}
+		this.latencyWatchdog.forget(featureID);
+		buildDispatchTables();
+	}
+
+	/**
+	 * @param featureID The ID of a feature
+	 * @return true if this Evaluator currently passes events to a feature evaluator of the
+	 * 			feature; false otherwise
+	 */
+	public boolean hasFeatureEvaluator(String featureID) {
+		for (FeatureEvaluator featureEvaluator : this.featureEvaluators) {
+			if (featureEvaluator.getFeatureID().equals(featureID)) {
+				return true;
 			}
 		}
 		return false;
 	}
 
 	/**
-	 * Stops this Evaluator by removing any listeners it created
+	 * @param featureID The ID of a feature
+	 * @return true if the feature's evaluator has been quarantined for this document for being
+	 * 			too slow; false otherwise
+	 */
+	public boolean isQuarantined(String featureID) {
+		return this.latencyWatchdog.isQuarantined(featureID);
+	}
+
+	/**
+	 * @return The IDs of the features whose evaluators have been quarantined for this document
+	 */
+	public Set<String> getQuarantinedFeatureIDs() {
+		return this.latencyWatchdog.getQuarantinedFeatureIDs();
+	}
+
+	/**
+	 * @return IFile The workspace file the document was opened from, or null if it is not a
+	 * 			workspace file
+	 */
+	public IFile getFile() {
+		return this.file;
+	}
+
+	/**
+	 * @return DocumentChangesListener The listener for changes to this Evaluator's document
+	 */
+	public DocumentChangesListener getDocumentChangesListener() {
+		return this.documentChangesListener;
+	}
+
+	/**
+	 * @return IDocument The document this Evaluator is attached to
+	 */
+	public IDocument getDocument() {
+		return this.document;
+	}
+
+	/**
+	 * @return AnnotationClassifier The classification of this Evaluator's annotation model
+	 */
+	public AnnotationClassifier getAnnotationClassifier() {
+		return this.annotationClassifier;
+	}
+
+	/**
+	 * @return EvaluationSettings The options controlling how this Evaluator processes user input
+	 */
+	public EvaluationSettings getSettings() {
+		return this.manager.getSettings();
+	}
+
+	/**
+	 * @return The number of annotation model notifications that were merged into another
+	 * 			notification's evaluation for this Evaluator's document
+	 */
+	public long getAbsorbedAnnotationNotificationCount() {
+		return this.annotationModelListener.getAbsorbedNotificationCount();
+	}
+
+	/**
+	 * @return The number of applied document changes this Evaluator has evaluated
+	 */
+	public long getDocumentChangeCount() {
+		return this.documentChangeCount;
+	}
+
+	/**
+	 * @return The number of times feature evaluators were called for applied document changes
+	 */
+	public long getFeatureEvaluatorCallCount() {
+		return this.featureEvaluatorCallCount;
+	}
+
+	/**
+	 * @return The number of calls to feature evaluators for applied document changes that were
+	 * 			skipped because the feature evaluator's content filter did not match the change
+	 */
+	public long getFilteredFeatureEvaluatorCallCount() {
+		return this.filteredFeatureEvaluatorCallCount;
+	}
+
+	/**
+	 * @return The average number of feature evaluator calls made per 1,000 applied document
+	 * 			changes, or 0 if no changes have been evaluated
+	 */
+	public long getFeatureEvaluatorCallsPerThousandChanges() {
+		if (this.documentChangeCount == 0) {
+			return 0;
+		}
+		return this.featureEvaluatorCallCount * 1000 / this.documentChangeCount;
+	}
+
+	/**
+	 * @return DocumentChangeQueue The bounded queue of captured changes waiting to be evaluated in
+	 * 			the background, with its depth and drop counters
+	 */
+	public DocumentChangeQueue getChangeQueue() {
+		return this.changeQueue;
+	}
+
+	/**
+	 * Stops this Evaluator by removing any listeners it created, and releases the state held by
+	 * its feature evaluators. Stopping an Evaluator more than once has no further effect.
 	 */
 	public void stop() {
+		if (this.stopped) {
+			return;
+		}
+		this.stopped = true;
+
 		this.document.removeDocumentListener(this.documentChangesListener);
+		this.documentChangesListener.dispose();
 		this.annotationModel.removeAnnotationModelListener(this.annotationModelListener);
+		this.annotationModelListener.dispose();
+		if (this.rewriteSessionListener != null) {
+			((IDocumentExtension4) this.document).removeDocumentRewriteSessionListener(this.rewriteSessionListener);
+		}
+		this.deferredContext = null;
+		this.deferredEvaluators = null;
+		Display display = Display.getCurrent();
+		if (display != null) {
+			display.timerExec(-1, this.deferredEvaluationTask);
+		}
+		cancelDeferredEvaluation();
+		this.changeQueue.close();
+		synchronized (this) {
+			this.featureEvaluators.clear();
+			buildDispatchTables();
+		}
+	}
+
+	/**
+	 * @return true if this Evaluator has been stopped; false otherwise
+	 */
+	public boolean isStopped() {
+		return this.stopped;
 	}
 }
@@ -1,40 +1,118 @@
 package main.evaluators;
 
-import java.util.HashMap;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.core.commands.Command;
 import org.eclipse.core.commands.IExecutionListener;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.IEditorInput;
 import org.eclipse.ui.IEditorPart;
 import org.eclipse.ui.IEditorReference;
-import org.eclipse.ui.IWorkbenchCommandConstants;
 import org.eclipse.ui.IWorkbenchPage;
 import org.eclipse.ui.IWorkbenchWindow;
 import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.commands.ICommandService;
 import org.eclipse.ui.texteditor.ITextEditor;
 
+import main.activation.Activator;
+import main.interfaces.EvaluationSettings;
+import main.interfaces.ExecutionMode;
+import main.interfaces.FeatureID;
 import main.interfaces.FeatureSuggestion;
 import main.listeners.EditorWindowListener;
+import main.listeners.FeatureAdoptionListener;
+import main.listeners.LazyAttachListener;
 import main.listeners.SaveFileListener;
+import main.listeners.WorkbenchWindowListener;
 
 /**
  * This class keeps track of all evaluators that are open across all
  * document editor windows, and provides the ability to add new
  * evaluators.
+ *
+ * The registries of Evaluators, listeners and feature states are concurrent, so Evaluators can
+ * be added and removed, features enabled and disabled, and feature suggestions reported from any
+ * thread without locking the UI thread. Registering an Evaluator happens-before any lookup that
+ * returns it. Evaluators are constructed and stopped outside the registries, which are only
+ * updated with putIfAbsent, replace and remove(key, value); the Evaluator itself makes attaching
+ * an editor window and releasing a document's last window atomic with respect to each other, so
+ * a window never shares an Evaluator that is being stopped. The registries of editor windows are
+ * only used on the UI thread, where the workbench reports editor windows opening and closing.
  */
 public class EvaluatorManager {
 
 	/** FeatureSuggestion that sends notifications to observers */
 	private FeatureSuggestion fs;
 
-	/** Evaluators and the editor window (document) they are attached to */
-	private Map<IEditorPart, Evaluator> openPartEvaluators;
+	/**
+	 * Open editor windows and a weak reference to each, holding the Evaluator of the window's
+	 * document. Weakly keyed, so that an editor that is disposed without being reported as closed
+	 * cannot be kept alive by its Evaluator. Only used on the UI thread
+	 */
+	private Map<IEditorPart, EditorReference> openPartReferences;
+	/** Queue that the weak references are put on once their editor window is garbage collected */
+	private ReferenceQueue<IEditorPart> collectedEditors;
+	/**
+	 * Evaluators and the document they are attached to. Each Evaluator is shared by all editor
+	 * windows showing its document, and is stopped once the last of them is closed
+	 */
+	private Map<IDocument, Evaluator> documentEvaluators;
+	/** Evaluators and the workspace file their document was opened from, used to route saves */
+	private Map<IFile, Evaluator> fileEvaluators;
 	/** Listeners for changes in the Eclipse workspace and the workspace page they are attached to */
 	private Map<IWorkbenchPage, EditorWindowListener> openWindowListeners;
 	/** Listeners for commands in the workspace (save, etc) and the commands they are attached to */
 	private Map<Command, IExecutionListener> openCommandExecutionListeners;
+	/** Listener for files being saved across the workspace */
+	private SaveFileListener saveFileListener;
+	/** Listener for workbench windows and pages opened after start() */
+	private WorkbenchWindowListener workbenchWindowListener;
+	/** One-shot listeners on the documents of editor windows that do not have an Evaluator yet. Only used on the UI thread */
+	private Map<IEditorPart, LazyAttachListener> pendingAttachments;
+
+	/** Flag set while start() is running, so that only the editor windows found at startup are counted */
+	private boolean starting;
+	/** Time, in nanoseconds, that start() took */
+	private long startupNanos;
+	/** Number of open Java editor windows found by start() */
+	private int startupEditorCount;
+	/** Number of open Java editor windows that start() attached an Evaluator to right away */
+	private int startupAttachedCount;
+	/** Total time, in nanoseconds, spent constructing Evaluators */
+	private AtomicLong evaluatorCreationNanos;
+	/** Number of Evaluators constructed */
+	private AtomicInteger evaluatorCreationCount;
+	/** Background worker used to evaluate document changes when asynchronous evaluation is on */
+	private ExecutorService evaluationWorker;
+	/** Pool of threads shared by the Evaluators' serial queues in the PER_DOCUMENT execution mode */
+	private ExecutorService evaluationPool;
+	/** Executor starting a virtual thread per task, used in the VIRTUAL_THREADS execution mode */
+	private ExecutorService virtualThreadExecutor;
+	/** Flag set once the runtime has been found not to support virtual threads */
+	private boolean virtualThreadsUnsupported;
+	/** Policy deciding which features the user has already learned and no longer need evaluating */
+	private FeatureRetirementPolicy retirementPolicy;
+	/** IDs of the features the frontend has disabled */
+	private Set<String> disabledFeatureIDs;
 
 	/**
 	 * Creates a new EvaluatorManager
@@ -42,9 +120,17 @@ public class EvaluatorManager {
 	 */
 	public EvaluatorManager(FeatureSuggestion fs) {
 		this.fs = fs;
-		this.openPartEvaluators = new HashMap<IEditorPart, Evaluator>();
-		this.openWindowListeners = new HashMap<IWorkbenchPage, EditorWindowListener>();
-		this.openCommandExecutionListeners = new HashMap<Command, IExecutionListener>();
+		this.openPartReferences = new WeakHashMap<IEditorPart, EditorReference>();
+		this.collectedEditors = new ReferenceQueue<IEditorPart>();
+		this.documentEvaluators = new ConcurrentHashMap<IDocument, Evaluator>();
+		this.fileEvaluators = new ConcurrentHashMap<IFile, Evaluator>();
+		this.openWindowListeners = new ConcurrentHashMap<IWorkbenchPage, EditorWindowListener>();
+		this.openCommandExecutionListeners = new ConcurrentHashMap<Command, IExecutionListener>();
+		this.pendingAttachments = new WeakHashMap<IEditorPart, LazyAttachListener>();
+		this.evaluatorCreationNanos = new AtomicLong();
+		this.evaluatorCreationCount = new AtomicInteger();
+		this.retirementPolicy = new FeatureRetirementPolicy();
+		this.disabledFeatureIDs = ConcurrentHashMap.newKeySet();
 	}
 
 	/**
@@ -55,26 +141,304 @@ public class EvaluatorManager {
 	}
 
 	/**
-	 * Returns a map of IEditorParts as keys and their respective active evaluator objects
-	 * as values
-	 * @return Map<IEditorPart, Evaluator> The map of text editor windows to their Evaluators
+	 * @return EvaluationSettings The options controlling how evaluators process user input
+	 */
+	public EvaluationSettings getSettings() {
+		return this.fs.getSettings();
+	}
+
+	/**
+	 * Returns the background worker that evaluates document changes when asynchronous evaluation
+	 * is turned on. The worker is a single daemon thread, so changes are evaluated in the order
+	 * they were made. It is created the first time it is needed.
+	 * @return ExecutorService The background evaluation worker
+	 */
+	public synchronized ExecutorService getEvaluationWorker() {
+		if (this.evaluationWorker == null) {
+			this.evaluationWorker = Executors.newSingleThreadExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "IDE-IT Evaluation Worker");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return this.evaluationWorker;
+	}
+
+	/**
+	 * Returns the pool of threads shared by the Evaluators' serial queues in the PER_DOCUMENT
+	 * execution mode. The pool has one daemon thread per available processor, so documents are
+	 * evaluated in parallel on all cores without creating a thread per document. It is created the
+	 * first time it is needed.
+	 * @return ExecutorService The shared evaluation pool
+	 */
+	public synchronized ExecutorService getEvaluationPool() {
+		if (this.evaluationPool == null) {
+			final AtomicInteger threadCount = new AtomicInteger();
+			this.evaluationPool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+				Thread thread = new Thread(runnable, "IDE-IT Evaluation Pool " + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return this.evaluationPool;
+	}
+
+	/**
+	 * Returns the executor that the Evaluators' serial queues hand their tasks to in the given
+	 * execution mode. In the VIRTUAL_THREADS mode, this runs each task on a new virtual thread; if
+	 * the runtime does not support virtual threads, the shared evaluation pool is used instead.
+	 * @param mode The PER_DOCUMENT or VIRTUAL_THREADS execution mode
+	 * @return ExecutorService The executor to run serial queue tasks on
+	 */
+	public synchronized ExecutorService getSerialQueueExecutor(ExecutionMode mode) {
+		if (mode == ExecutionMode.VIRTUAL_THREADS && !this.virtualThreadsUnsupported) {
+			if (this.virtualThreadExecutor == null) {
+				this.virtualThreadExecutor = createVirtualThreadExecutor();
+				this.virtualThreadsUnsupported = this.virtualThreadExecutor == null;
+			}
+			if (this.virtualThreadExecutor != null) {
+				return this.virtualThreadExecutor;
+			}
+		}
+		return getEvaluationPool();
+	}
+
+	/**
+	 * Creates an executor that starts a new virtual thread for each task. The bundle targets Java 8,
+	 * so the Java 21 factory method is looked up reflectively.
+	 * @return ExecutorService A virtual thread per task executor, or null if the runtime does not
+	 * 			support virtual threads
+	 */
+	private ExecutorService createVirtualThreadExecutor() {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return true if the runtime has been found not to support virtual threads, in which case the
+	 * 			VIRTUAL_THREADS execution mode falls back to the shared evaluation pool; false otherwise
+	 */
+	public synchronized boolean isVirtualThreadFallbackActive() {
+		return this.virtualThreadsUnsupported;
+	}
+
+	/**
+	 * Runs the given runnable on the UI thread at the next reasonable opportunity. Used to hand
+	 * results computed on background threads back to the UI thread. Does nothing if the workbench
+	 * is no longer running.
+	 * @param runnable The code to run on the UI thread
+	 */
+	public void runOnDisplay(Runnable runnable) {
+		if (!PlatformUI.isWorkbenchRunning()) {
+			return;
+		}
+		Display display = PlatformUI.getWorkbench().getDisplay();
+		if (!display.isDisposed()) {
+			display.asyncExec(runnable);
+		}
+	}
+
+	/**
+	 * Returns the active evaluator objects, one for each open document
+	 * @return Collection<Evaluator> The Evaluators of all open documents
 	 */
-	public Map<IEditorPart, Evaluator> getOpenEvaluators() {
-		return this.openPartEvaluators;
+	public Collection<Evaluator> getOpenEvaluators() {
+		return this.documentEvaluators.values();
 	}
 
 	/**
-	 * Takes an IEditorPart and initializes an evaluator for the IEditorPart window. Adds the
-	 * evaluator to the list of open evaluators.
+	 * @param editor The editor window to check
+	 * @return true if the given editor window has an Evaluator assigned to it; false otherwise
+	 */
+	public boolean hasEvaluator(IEditorPart editor) {
+		return this.openPartReferences.containsKey(editor);
+	}
+
+	/**
+	 * Assigns an evaluator to the given IEditorPart window. If another window already shows the
+	 * same document, the window shares that document's Evaluator; otherwise a new Evaluator is
+	 * initialized and added to the list of open evaluators.
 	 * @param textEditor The text editor window to add an evaluator to
 	 */
 	public void addEvaluator(ITextEditor textEditor) {
+		purgeCollectedEditors();
+		cancelDeferredAttachment(textEditor);
+		IDocument document = getDocument(textEditor);
+		if (hasEvaluator(textEditor) || document == null) {
+			return;
+		}
 
-		// Create an evaluator for the given editor window
-		Evaluator newEvaluator = new Evaluator(this, textEditor);
+		// Editors restored in the background are not visible until their tab is selected
+		IWorkbenchPage page = textEditor.getSite() == null ? null : textEditor.getSite().getPage();
+		boolean visible = page == null || page.isPartVisible(textEditor);
+
+		// Share the document's Evaluator if another window is showing it. Otherwise create one
+		// outside the registry, and register it unless another thread registered one first
+		Evaluator evaluator = this.documentEvaluators.get(document);
+		while (evaluator == null || !evaluator.editorAttached(visible)) {
+			Evaluator created = createEvaluator(textEditor);
+			created.editorAttached(visible);
+			boolean registered = evaluator == null ? this.documentEvaluators.putIfAbsent(document, created) == null :
+					this.documentEvaluators.replace(document, evaluator, created);
+			if (registered) {
+				if (created.getFile() != null) {
+					this.fileEvaluators.put(created.getFile(), created);
+				}
+				evaluator = created;
+			} else {
+				created.stop();
+				evaluator = this.documentEvaluators.get(document);
+			}
+		}
 
 		// Add this part->evaluator mapping to the list of open evaluators
-		this.openPartEvaluators.put(textEditor, newEvaluator);
+		this.openPartReferences.put(textEditor, new EditorReference(textEditor, evaluator, visible,
+				this.collectedEditors));
+	}
+
+	/**
+	 * Constructs an Evaluator for the document of the given editor window
+	 * @param textEditor The text editor window showing the document
+	 * @return The new Evaluator
+	 */
+	private Evaluator createEvaluator(ITextEditor textEditor) {
+		long creationStart = System.nanoTime();
+		Evaluator evaluator = new Evaluator(this, textEditor);
+		this.evaluatorCreationNanos.addAndGet(System.nanoTime() - creationStart);
+		this.evaluatorCreationCount.incrementAndGet();
+		return evaluator;
+	}
+
+	/**
+	 * Defers assigning an evaluator to the given IEditorPart window until the window is first
+	 * activated or its document is first about to change, whichever comes first. Used for windows
+	 * the user has not interacted with yet, such as those restored at startup.
+	 * @param textEditor The text editor window to add an evaluator to later
+	 */
+	public void deferEvaluator(ITextEditor textEditor) {
+		IDocument document = getDocument(textEditor);
+		if (document == null || hasEvaluator(textEditor) || this.pendingAttachments.containsKey(textEditor)) {
+			return;
+		}
+		this.pendingAttachments.put(textEditor, new LazyAttachListener(this, textEditor, document));
+	}
+
+	/**
+	 * Assigns an evaluator to a window whose evaluator was deferred, because its document is
+	 * about to change for the first time. The Evaluator's listeners are added to the document
+	 * while it is notifying its listeners, so they miss this notification; it is forwarded to a
+	 * newly created Evaluator here. An Evaluator already attached through another window has
+	 * received the notification itself.
+	 * @param textEditor The text editor window to add an evaluator to
+	 * @param event The document change data of the first change
+	 */
+	public void attachOnFirstChange(ITextEditor textEditor, DocumentEvent event) {
+		this.pendingAttachments.remove(textEditor);
+		boolean documentHadEvaluator = this.documentEvaluators.containsKey(event.getDocument());
+		addEvaluator(textEditor);
+
+		Evaluator evaluator = this.documentEvaluators.get(event.getDocument());
+		if (evaluator != null && !documentHadEvaluator) {
+			evaluator.getDocumentChangesListener().documentAboutToBeChanged(event);
+		}
+	}
+
+	/**
+	 * Removes the one-shot listener waiting to assign an evaluator to the given editor window,
+	 * if there is one
+	 * @param editor The editor window
+	 */
+	private void cancelDeferredAttachment(IEditorPart editor) {
+		LazyAttachListener pending = this.pendingAttachments.remove(editor);
+		if (pending != null) {
+			pending.dispose();
+		}
+	}
+
+	/**
+	 * @param textEditor The text editor window
+	 * @return IDocument The document shown in the editor window, or null if it cannot be found
+	 */
+	private static IDocument getDocument(ITextEditor textEditor) {
+		if (textEditor.getDocumentProvider() == null) {
+			return null;
+		}
+		return textEditor.getDocumentProvider().getDocument(textEditor.getEditorInput());
+	}
+
+	/**
+	 * Stops tracking the given editor window. Its document's Evaluator is stopped once no other
+	 * window shows the document. Called when the editor window is closed.
+	 * @param editor The text editor window to remove the evaluator of
+	 */
+	public void removeEvaluator(IEditorPart editor) {
+		cancelDeferredAttachment(editor);
+		EditorReference reference = this.openPartReferences.remove(editor);
+		if (reference != null) {
+
+			// The editor is gone, so its weak reference no longer needs to be queued
+			reference.clear();
+			releaseEditor(reference);
+		}
+		purgeCollectedEditors();
+	}
+
+	/**
+	 * Pauses or resumes evaluation for the given editor window's document, depending on whether
+	 * the user can currently see any window showing the document
+	 * @param editor The text editor window that was hidden or shown
+	 * @param visible true if the editor window is now visible; false if it is now hidden
+	 */
+	public void setEditorVisible(IEditorPart editor, boolean visible) {
+		EditorReference reference = this.openPartReferences.get(editor);
+		if (reference != null && reference.visible != visible) {
+			reference.visible = visible;
+			reference.evaluator.editorVisibilityChanged(visible);
+		}
+	}
+
+	/**
+	 * Releases the Evaluators held by editor windows that were garbage collected without being
+	 * closed
+	 */
+	private void purgeCollectedEditors() {
+		EditorReference reference;
+		while ((reference = (EditorReference) this.collectedEditors.poll()) != null) {
+			releaseEditor(reference);
+		}
+	}
+
+	/**
+	 * Detaches an editor window from its document's Evaluator, stopping the Evaluator and
+	 * removing it from the document and file indexes if no other window shows the document
+	 * @param reference The reference to the editor window being released
+	 */
+	private void releaseEditor(EditorReference reference) {
+		Evaluator evaluator = reference.evaluator;
+
+		// The Evaluator stops itself when its last window is detached, so a window attaching to
+		// the document at the same time either shares it before it is stopped or replaces it
+		if (evaluator.editorDetached(reference.visible) > 0) {
+			return;
+		}
+		this.documentEvaluators.remove(evaluator.getDocument(), evaluator);
+		if (evaluator.getFile() != null) {
+			this.fileEvaluators.remove(evaluator.getFile(), evaluator);
+		}
+	}
+
+	/**
+	 * Returns the number of Evaluators currently attached to a document. Meant as a diagnostic
+	 * that can be watched over time; it should follow the number of distinct open Java documents.
+	 * @return The number of live Evaluators
+	 */
+	public int getLiveEvaluatorCount() {
+		purgeCollectedEditors();
+		return this.documentEvaluators.size();
 	}
 
 	/**
@@ -82,50 +446,220 @@ public class EvaluatorManager {
 	 * @param featureID The unique String ID of the feature triggered
 	 */
 	public void notifyFeatureSuggestion(String featureID) {
+
+		// Drop results computed in the background before the feature was disabled or retired
+		if (!isFeatureActive(featureID)) {
+			return;
+		}
 		this.fs.notifyAllObservers(featureID);
+		if (this.retirementPolicy.recordNotification(featureID, getSettings())) {
+			retireFeature(featureID);
+		}
 	}
 
 	/**
-	 * Creates evaluators for each open document window, as well as listeners for additional
-	 * document windows opening and for file saves across the Eclipse workspace
+	 * Reports that the user ran one of the Eclipse commands implementing a feature, and retires
+	 * the feature if the user has now used it often enough
+	 * @param featureID The ID of the feature the user used
+	 */
+	public void featureAdopted(String featureID) {
+		if (this.retirementPolicy.recordAdoption(featureID, getSettings())) {
+			retireFeature(featureID);
+		}
+	}
+
+	/**
+	 * Removes a retired feature's evaluator from every open Evaluator. Evaluators created later
+	 * never create it.
+	 * @param featureID The ID of the retired feature
+	 */
+	private void retireFeature(String featureID) {
+		for (Evaluator evaluator : this.documentEvaluators.values()) {
+			evaluator.removeFeature(featureID);
+		}
+		Activator activator = Activator.getDefault();
+		if (activator != null) {
+			activator.getLog().log(new Status(IStatus.INFO, Activator.PLUGIN_ID,
+					"Retired feature " + featureID + " after " +
+					this.retirementPolicy.getNotificationCount(featureID) + " notifications and " +
+					this.retirementPolicy.getAdoptionCount(featureID) + " uses"));
+		}
+	}
+
+	/**
+	 * @param featureID The ID of a feature
+	 * @return true if the user has learned the feature and it is no longer evaluated; false otherwise
+	 */
+	public boolean isFeatureRetired(String featureID) {
+		return this.retirementPolicy.isRetired(featureID);
+	}
+
+	/**
+	 * @return The IDs of the features the user has learned and that are no longer evaluated
+	 */
+	public Set<String> getRetiredFeatureIDs() {
+		return this.retirementPolicy.getRetiredFeatureIDs();
+	}
+
+	/**
+	 * Enables a feature that was disabled or retired, creating its feature evaluator in every open
+	 * Evaluator. The notifications and uses counted toward retiring the feature are reset, so it is
+	 * suggested again until it reaches the retirement limits anew.
+	 * @param featureID The ID of the feature to enable
+	 * @return true if the feature was disabled or retired and is now enabled; false otherwise
+	 */
+	public boolean enableFeature(String featureID) {
+		boolean wasDisabled = this.disabledFeatureIDs.remove(featureID);
+		boolean wasRetired = this.retirementPolicy.resetRetirement(featureID);
+		if (!wasDisabled && !wasRetired) {
+			return false;
+		}
+		if (isFeatureActive(featureID)) {
+			for (Evaluator evaluator : this.documentEvaluators.values()) {
+				evaluator.addFeature(featureID);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Disables a feature, removing its feature evaluator from every open Evaluator. Evaluators
+	 * created later do not create it until the feature is enabled again. Suggestions of the feature
+	 * computed while it is being disabled are dropped when they are reported.
+	 * @param featureID The ID of the feature to disable
+	 * @return true if the feature was enabled and is now disabled; false if it was already
+	 * 			disabled or is not a known feature
+	 */
+	public boolean disableFeature(String featureID) {
+		if (!FeatureID.getAllFeatureIDs().contains(featureID) || !this.disabledFeatureIDs.add(featureID)) {
+			return false;
+		}
+		for (Evaluator evaluator : this.documentEvaluators.values()) {
+			evaluator.removeFeature(featureID);
+		}
+		return true;
+	}
+
+	/**
+	 * @param featureID The ID of a feature
+	 * @return true if the feature is known and has not been disabled; false otherwise
+	 */
+	public boolean isFeatureEnabled(String featureID) {
+		return FeatureID.getAllFeatureIDs().contains(featureID) && !this.disabledFeatureIDs.contains(featureID);
+	}
+
+	/**
+	 * @param featureID The ID of a feature
+	 * @return true if the feature is enabled and has not been retired, i.e. Evaluators should
+	 * 			create its feature evaluator; false otherwise
+	 */
+	public boolean isFeatureActive(String featureID) {
+		return isFeatureEnabled(featureID) && !isFeatureRetired(featureID);
+	}
+
+	/**
+	 * Reports that a feature's evaluator was quarantined for a document, because it repeatedly
+	 * took longer than the latency budget to evaluate an event
+	 * @param featureID The ID of the feature whose evaluator was quarantined
+	 * @param evaluator The Evaluator of the document the feature evaluator was quarantined for
+	 * @param elapsedMillis How long, in milliseconds, the call that used up the last strike took
+	 */
+	public void notifyFeatureQuarantined(String featureID, Evaluator evaluator, long elapsedMillis) {
+		IFile file = evaluator.getFile();
+		String documentPath = file == null ? null : file.getFullPath().toString();
+		this.fs.notifyQuarantineObservers(featureID, documentPath, elapsedMillis);
+	}
+
+	/**
+	 * Adds listeners for document windows opening and for file saves across the Eclipse workspace,
+	 * as well as for workbench windows and pages opening later on. Evaluators are only created
+	 * right away for the active editor window of each page; the other open document windows get
+	 * an evaluator once they are activated or their document first changes.
 	 */
 	public void start() {
+		long startTime = System.nanoTime();
+		this.starting = true;
+
+		// Restore which features the user has already learned
+		this.retirementPolicy.load();
+
+		// Listen for the user running the commands that implement the suggested features
+		ICommandService commandService = PlatformUI.getWorkbench().getAdapter(ICommandService.class);
+		if (commandService != null) {
+			FeatureAdoptionListener adoptionListener = new FeatureAdoptionListener(this);
+			for (String commandID : FeatureRetirementPolicy.getAdoptionCommands().keySet()) {
+				Command command = commandService.getCommand(commandID);
+				command.addExecutionListener(adoptionListener);
+				this.openCommandExecutionListeners.put(command, adoptionListener);
+			}
+		}
 
 		// Add a save file listener to the workspace
-		ICommandService commandSvc = PlatformUI.getWorkbench().getAdapter(ICommandService.class);
-		Command saveCommand = commandSvc.getCommand(IWorkbenchCommandConstants.FILE_SAVE);
-		SaveFileListener saveListener = new SaveFileListener(this);
-		saveCommand.addExecutionListener(saveListener);
-		this.openCommandExecutionListeners.put(saveCommand, saveListener);
+		this.saveFileListener = new SaveFileListener(this);
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(this.saveFileListener,
+				IResourceChangeEvent.POST_CHANGE);
+
+		// Listen for workbench windows and pages that are opened later
+		this.workbenchWindowListener = new WorkbenchWindowListener(this);
+		PlatformUI.getWorkbench().addWindowListener(this.workbenchWindowListener);
 
 		// For each workbench page in Eclipse
 		for (IWorkbenchWindow window : PlatformUI.getWorkbench().getWorkbenchWindows()) {
+			window.addPageListener(this.workbenchWindowListener);
 			for (IWorkbenchPage page : window.getPages()) {
+				addPage(page);
+			}
+		}
+
+		this.starting = false;
+		this.startupNanos = System.nanoTime() - startTime;
+		logStartupReport();
+	}
 
-				// Add a window listener to the page to listen for new windows opening
-				EditorWindowListener windowListener = new EditorWindowListener(this);
-				page.addPartListener(windowListener);
-
-				// Add the listener to the list of open window listeners
-				this.openWindowListeners.put(page, windowListener);
-
-				// For all editor windows that are already open
-				for (IEditorReference editRef : page.getEditorReferences()) {
-					IEditorPart ePart = editRef.getEditor(false);
-
-					// If the editor window is a text editor
-					if (ePart != null && ePart instanceof ITextEditor) {
-						ITextEditor textEditor = (ITextEditor) ePart;
-						IEditorInput eInput = textEditor.getEditorInput();
-
-						// If the document in the window is a .java document, add an
-						// evaluator to the window
-						if (eInput != null) {
-							String filename = eInput.getName();
-							if (filename != null && filename.endsWith(".java") &&
-									!this.getOpenEvaluators().containsKey(ePart)) {
-								addEvaluator(textEditor);
+	/**
+	 * Starts tracking the document windows of the given workbench page. Adds a window listener to
+	 * the page, assigns an evaluator to the page's active editor window, and defers assigning
+	 * evaluators to its other open document windows.
+	 * @param page The workbench page to track
+	 */
+	public void addPage(IWorkbenchPage page) {
+		if (this.openWindowListeners.containsKey(page)) {
+			return;
+		}
+
+		// Add a window listener to the page to listen for new windows opening
+		EditorWindowListener windowListener = new EditorWindowListener(this);
+		page.addPartListener(windowListener);
+
+		// Add the listener to the list of open window listeners
+		this.openWindowListeners.put(page, windowListener);
+
+		// For all editor windows that are already open. Editors that have not been restored yet
+		// are picked up by the window listener once they are.
+		IEditorPart activeEditor = page.getActiveEditor();
+		for (IEditorReference editRef : page.getEditorReferences()) {
+			IEditorPart ePart = editRef.getEditor(false);
+
+			// If the editor window is a text editor
+			if (ePart != null && ePart instanceof ITextEditor) {
+				ITextEditor textEditor = (ITextEditor) ePart;
+				IEditorInput eInput = textEditor.getEditorInput();
+
+				// If the document in the window is a .java document, add an evaluator to the
+				// window if it is the one the user is working in, and defer it otherwise
+				if (eInput != null) {
+					String filename = eInput.getName();
+					if (filename != null && filename.endsWith(".java")) {
+						if (this.starting) {
+							this.startupEditorCount++;
+						}
+						if (ePart == activeEditor) {
+							if (this.starting) {
+								this.startupAttachedCount++;
 							}
+							addEvaluator(textEditor);
+						} else {
+							deferEvaluator(textEditor);
 						}
 					}
 				}
@@ -133,6 +667,50 @@ public class EvaluatorManager {
 		}
 	}
 
+	/**
+	 * Stops tracking the document windows of the given workbench page, which is being closed.
+	 * Its editor windows report being closed on their own.
+	 * @param page The workbench page to stop tracking
+	 */
+	public void removePage(IWorkbenchPage page) {
+		EditorWindowListener windowListener = this.openWindowListeners.remove(page);
+		if (windowListener != null) {
+			page.removePartListener(windowListener);
+		}
+	}
+
+	/**
+	 * Returns a summary of how long start() took and how much work it deferred. The time saved is
+	 * estimated from the average time taken to construct the Evaluators created so far, so the
+	 * estimate improves as deferred editor windows get their Evaluators.
+	 * @return String The startup timing report
+	 */
+	public String getStartupReport() {
+		int deferred = this.startupEditorCount - this.startupAttachedCount;
+		StringBuilder report = new StringBuilder();
+		report.append(String.format("IDE-IT startup took %.2f ms. Attached evaluators to %d of %d open Java editors",
+				this.startupNanos / 1e6, this.startupAttachedCount, this.startupEditorCount));
+		int creationCount = this.evaluatorCreationCount.get();
+		if (deferred > 0 && creationCount > 0) {
+			double averageMillis = this.evaluatorCreationNanos.get() / 1e6 / creationCount;
+			report.append(String.format("; deferring the other %d saved about %.2f ms (%.2f ms per evaluator)",
+					deferred, deferred * averageMillis, averageMillis));
+		} else if (deferred > 0) {
+			report.append(String.format("; deferred the other %d", deferred));
+		}
+		return report.append('.').toString();
+	}
+
+	/**
+	 * Writes the startup timing report to the plugin's log, if the plugin has been activated
+	 */
+	private void logStartupReport() {
+		Activator activator = Activator.getDefault();
+		if (activator != null) {
+			activator.getLog().log(new Status(IStatus.INFO, Activator.PLUGIN_ID, getStartupReport()));
+		}
+	}
+
 	/**
 	 * Stops all Evaluators and removes any window or document listeners
 	 */
@@ -144,28 +722,128 @@ public class EvaluatorManager {
 		}
 		this.openWindowListeners.clear();
 
-		// Remove all evaluators that this EvaluatorManager created
-		for (IEditorPart documentEditor : this.openPartEvaluators.keySet()) {
-			this.openPartEvaluators.get(documentEditor).stop();
+		// Remove the workbench window listener
+		if (this.workbenchWindowListener != null) {
+			if (PlatformUI.isWorkbenchRunning()) {
+				PlatformUI.getWorkbench().removeWindowListener(this.workbenchWindowListener);
+				for (IWorkbenchWindow window : PlatformUI.getWorkbench().getWorkbenchWindows()) {
+					window.removePageListener(this.workbenchWindowListener);
+				}
+			}
+			this.workbenchWindowListener = null;
+		}
+
+		// Remove the listeners waiting to assign evaluators
+		for (LazyAttachListener pending : this.pendingAttachments.values()) {
+			pending.dispose();
+		}
+		this.pendingAttachments.clear();
+
+		// Remove all evaluators that this EvaluatorManager created, including any whose editor
+		// window has already been garbage collected
+		for (Evaluator evaluator : this.documentEvaluators.values()) {
+			evaluator.stop();
+		}
+		this.openPartReferences.clear();
+		while (this.collectedEditors.poll() != null) {
+		}
+		this.documentEvaluators.clear();
+		this.fileEvaluators.clear();
+
+		// Write out the notifications and uses counted since the last feature was retired
+		this.retirementPolicy.save();
+
+		// Remove the save file listener
+		if (this.saveFileListener != null) {
+			ResourcesPlugin.getWorkspace().removeResourceChangeListener(this.saveFileListener);
+			this.saveFileListener = null;
 		}
-		this.openPartEvaluators.clear();
 
 		// Remove all command execution listeners that this EvaluatorManager created
 		for (Command command : this.openCommandExecutionListeners.keySet()) {
 			command.removeExecutionListener(this.openCommandExecutionListeners.get(command));
 		}
 		this.openCommandExecutionListeners.clear();
+
+		// Stop the background threads, discarding any evaluations that have not started yet
+		synchronized (this) {
+			if (this.evaluationWorker != null) {
+				this.evaluationWorker.shutdownNow();
+				this.evaluationWorker = null;
+			}
+			if (this.evaluationPool != null) {
+				this.evaluationPool.shutdownNow();
+				this.evaluationPool = null;
+			}
+			if (this.virtualThreadExecutor != null) {
+				this.virtualThreadExecutor.shutdownNow();
+				this.virtualThreadExecutor = null;
+			}
+		}
+	}
+
+	/**
+	 * @return The number of annotation model notifications that were merged into a single
+	 * 			evaluation, summed over all open evaluators
+	 */
+	public long getAbsorbedAnnotationNotificationCount() {
+		long absorbed = 0;
+		for (Evaluator eval : this.getOpenEvaluators()) {
+			absorbed += eval.getAbsorbedAnnotationNotificationCount();
+		}
+		return absorbed;
 	}
 
 	/**
-	 * Signals the evaluators to check for unused imports
+	 * Returns the Evaluator attached to the given document
+	 * @param document The document to find the Evaluator of
+	 * @return Evaluator The Evaluator attached to the document, or null if it has none
 	 */
-	public void workspaceResourceSaved() {
-		for (Evaluator eval : this.getOpenEvaluators().values()) {
-			if (eval.workspaceResourceSaved()) {
-				this.notifyFeatureSuggestion("removeUnusedImportStatementSuggestion");
-				break;
+	public Evaluator getEvaluator(IDocument document) {
+		return this.documentEvaluators.get(document);
+	}
+
+	/**
+	 * Signals the Evaluators of a batch of saved files to run their save time evaluation
+	 * functions. Evaluators of files that were not saved are not involved, and each feature
+	 * triggered by the batch is suggested only once. Must be called on the UI thread.
+	 * @param files The workspace files that were saved
+	 */
+	public void filesSaved(Collection<IFile> files) {
+		Set<String> triggeredFeatureIDs = new LinkedHashSet<String>();
+		for (IFile file : files) {
+			Evaluator eval = this.fileEvaluators.get(file);
+			if (eval != null) {
+				eval.evaluateOnSave(triggeredFeatureIDs);
 			}
 		}
+		for (String featureID : triggeredFeatureIDs) {
+			notifyFeatureSuggestion(featureID);
+		}
+	}
+
+	/**
+	 * Weak reference to an editor window. Holds on to the Evaluator of the window's document, so
+	 * that the window can still be released from it once the window has been garbage collected.
+	 */
+	private static class EditorReference extends WeakReference<IEditorPart> {
+
+		/** Evaluator of the document shown in the editor window */
+		private final Evaluator evaluator;
+		/** Whether the editor window is currently visible */
+		private boolean visible;
+
+		/**
+		 * @param editor The editor window
+		 * @param evaluator The Evaluator of the document shown in the editor window
+		 * @param visible Whether the editor window is currently visible
+		 * @param queue The queue to put this reference on once the editor window is collected
+		 */
+		EditorReference(IEditorPart editor, Evaluator evaluator, boolean visible,
+				ReferenceQueue<IEditorPart> queue) {
+			super(editor, queue);
+			this.evaluator = evaluator;
+			this.visible = visible;
+		}
 	}
 }
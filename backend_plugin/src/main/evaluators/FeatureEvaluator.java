@@ -7,34 +7,211 @@ import org.eclipse.jface.text.source.IAnnotationModel;
 /**
  * An abstract class representing a feature evaluation function. Feature evaluations
  * can be added by extending this class and making use of its methods to evaluate
- * changes made within a document, then adding the new subclass to the Evaluator's
- * initializeFeatureEvaluators() method.
+ * changes made within a document, then adding a shared instance of the new subclass to the
+ * Evaluator's SHARED_FEATURE_EVALUATORS.
+ *
+ * Feature evaluators are flyweights: the Evaluator creates a single instance of each, shared by
+ * the Evaluators of all open documents, and passes the document's FeatureEvaluatorState along
+ * with every event. Feature evaluations must keep whatever they learn about a document in that
+ * state record, never in fields of their own, since the shared instance may be evaluating
+ * changes of different documents on different threads at the same time. Shared instances are
+ * constructed without a document and have no mutable fields. A feature evaluator constructed
+ * with a document can also be driven directly, through the methods that take no state, which
+ * delegate to a FeatureEvaluatorDriver owning the document and its state.
+ *
+ * When asynchronous evaluation is on, document changes are evaluated on background threads,
+ * possibly a different one (or a virtual thread) for each change, while annotation changes,
+ * saves and rebaselining still happen on the UI thread. The changes of one document are never
+ * evaluated concurrently, but state shared between these paths must not rely on a particular
+ * thread: fields written on one path and read on another should be volatile.
  */
 public abstract class FeatureEvaluator {
 
+	/**
+	 * Interest in document changes before they are applied. Feature evaluators with this interest
+	 * also have the contents of the changed line before the change captured for them, which they
+	 * can read from the context of the applied change.
+	 */
+	public static final int BEFORE_DOCUMENT_CHANGE = 1;
+	/** Interest in document changes, after they are applied */
+	public static final int DOCUMENT_CHANGE = 1 << 1;
+	/** Interest in annotation model changes */
+	public static final int ANNOTATION_MODEL_CHANGE = 1 << 2;
+	/** Interest in the document being saved */
+	public static final int SAVE = 1 << 3;
+	/** Interest in every kind of event */
+	public static final int ALL_EVENTS = BEFORE_DOCUMENT_CHANGE | DOCUMENT_CHANGE | ANNOTATION_MODEL_CHANGE | SAVE;
+
 	/** The unique feature ID String associated with the feature */
-	protected String featureID;
+	private final String featureID;
+
+	/**
+	 * The kinds of events this feature evaluator consumes, as a combination of the interest
+	 * constants above. The Evaluator only calls the evaluation methods for these kinds of events.
+	 */
+	private final int interests;
+
+	/**
+	 * The kinds of document changes this feature evaluator can be triggered or affected by, as a
+	 * combination of the DocumentChangeContext content constants. Document changes that match none
+	 * of them are not passed to this feature evaluator at all, so the filter must include every
+	 * kind of change that could trigger the feature or alter the evaluator's state.
+	 */
+	private final int contentFilter;
+
+	/**
+	 * The tier this feature evaluator's evaluation of document changes is scheduled in. Feature
+	 * evaluators doing expensive work, such as parsing the document, should be DEFERRED, and move
+	 * that work into evaluateDeferredChanges so that it does not slow down typing.
+	 */
+	private final EvaluationTier tier;
 
-	/** The document in which changes are evaluated */
-	protected IDocument document;
+	/** Driver of this feature evaluator when it is driven directly, or null for a shared instance */
+	private final FeatureEvaluatorDriver driver;
+
+	/**
+	 * Constructs a feature evaluator. Subclasses pass their feature ID, interests, content filter
+	 * and tier, which never change afterwards.
+	 * @param document The document to evaluate changes in when driven directly, or null for an
+	 * 			instance shared by the Evaluators of all documents
+	 * @param featureID The unique feature ID String associated with the feature
+	 * @param interests The kinds of events this feature evaluator consumes, as a combination of
+	 * 			the interest constants
+	 * @param contentFilter The kinds of document changes this feature evaluator is passed, as a
+	 * 			combination of the DocumentChangeContext content constants, or
+	 * 			DocumentChangeContext.ANY_CONTENT
+	 * @param tier The tier this feature evaluator's evaluation of document changes is scheduled in
+	 */
+	protected FeatureEvaluator(IDocument document, String featureID, int interests, int contentFilter,
+			EvaluationTier tier) {
+		this.featureID = featureID;
+		this.interests = interests;
+		this.contentFilter = contentFilter;
+		this.tier = tier;
+		this.driver = document == null ? null : new FeatureEvaluatorDriver(this, document);
+	}
 
 	/**
-	 * Evaluates changes made to the text within a document
+	 * Evaluates changes made to the text within a document. Builds the context of the change, as
+	 * the Evaluator would, for use when this feature evaluator is driven directly.
 	 * @param event The document change data
 	 * @return boolean true if the changes cause the feature to be triggered; false otherwise
 	 */
 	public boolean evaluateDocumentChanges(DocumentEvent event) {
-		return false;
+		return evaluateDocumentChanges(event, System.currentTimeMillis());
+	}
+
+	/**
+	 * Evaluates changes made to the text within a document, given the time the change was made.
+	 * Builds the context of the change, as the Evaluator would, for use when this feature
+	 * evaluator is driven directly.
+	 * @param event The document change data
+	 * @param timeStamp The time, in milliseconds, at which the user made the change
+	 * @return boolean true if the changes cause the feature to be triggered; false otherwise
+	 */
+	public boolean evaluateDocumentChanges(DocumentEvent event, long timeStamp) {
+		return getDriver().evaluateDocumentChanges(event, timeStamp);
 	}
 
 	/**
 	 * Evaluates what changes will be made to the text within a document before the changes are
-	 * applied
+	 * applied. Builds the context of the change, as the Evaluator would, for use when this feature
+	 * evaluator is driven directly.
 	 * @param event The document change data
 	 * @return true if the document changes that are about to occur cause the evaluation function
 	 * 			to trigger; false otherwise.
 	 */
 	public boolean evaluateDocumentBeforeChange(DocumentEvent event) {
+		return getDriver().evaluateDocumentBeforeChange(event);
+	}
+
+	/**
+	 * Evaluates changes made to the text within a document, given the time the change was made,
+	 * against this feature evaluator's own state
+	 * @param context The shared information about the change
+	 * @param timeStamp The time, in milliseconds, at which the user made the change
+	 * @return boolean true if the changes cause the feature to be triggered; false otherwise
+	 */
+	public boolean evaluateDocumentChanges(DocumentChangeContext context, long timeStamp) {
+		return evaluateDocumentChanges(context, getOwnState(), timeStamp);
+	}
+
+	/**
+	 * Evaluates changes made to the text within a document, given the time the change was made.
+	 * The Evaluator always calls this version, with a context shared by all feature evaluators and
+	 * the state of the document, since a change may be evaluated some time after the user made it.
+	 * Feature evaluations that evaluate document changes should override this method, and read
+	 * the line data they need from the context rather than from the document.
+	 * @param context The shared information about the change
+	 * @param state The state built up from the document's earlier events
+	 * @param timeStamp The time, in milliseconds, at which the user made the change
+	 * @return boolean true if the changes cause the feature to be triggered; false otherwise
+	 */
+	public boolean evaluateDocumentChanges(DocumentChangeContext context, FeatureEvaluatorState state,
+			long timeStamp) {
+		return false;
+	}
+
+	/**
+	 * Runs the expensive part of the evaluation of a change to the text within a document, once
+	 * the editor has been idle for the deferred evaluation delay. Only called for feature
+	 * evaluators in the DEFERRED tier, and only for the latest change before the editor went
+	 * idle; every change, including that one, has already been passed to
+	 * evaluateDocumentChanges. Cheap checks that must see each change therefore belong in
+	 * evaluateDocumentChanges, against whatever this method last stored in the state.
+	 *
+	 * The Evaluator calls this in a background job, with a context over a copy of the document and
+	 * a copy of the document's state, and the fields changed in the copy are only kept through
+	 * commitDeferredState. Long running work should give up once the context's progress monitor
+	 * is cancelled.
+	 * @param context The shared information about the change
+	 * @param state The state built up from the document's earlier events
+	 * @param timeStamp The time, in milliseconds, at which the user made the change
+	 * @return boolean true if the changes cause the feature to be triggered; false otherwise
+	 */
+	public boolean evaluateDeferredChanges(DocumentChangeContext context, FeatureEvaluatorState state,
+			long timeStamp) {
+		return false;
+	}
+
+	/**
+	 * Tells whether a change to the text within a document needs a deferred pass. Only called for
+	 * feature evaluators in the DEFERRED tier, on the UI thread, right after the change is
+	 * applied, so it must be cheap. When none of the deferred feature evaluators needs a deferred
+	 * pass, the Evaluator neither copies the document nor schedules a job. Feature evaluations
+	 * that only need a deferred pass for some changes (e.g. when the state is out of date for the
+	 * changed line) should override this; by default every change needs one.
+	 * @param context The shared information about the change
+	 * @param state The state built up from the document's earlier events
+	 * @return true if evaluateDeferredChanges should be called for the change; false otherwise
+	 */
+	public boolean needsDeferredEvaluation(DocumentChangeContext context, FeatureEvaluatorState state) {
+		return true;
+	}
+
+	/**
+	 * Evaluates what changes will be made to the text within a document before the changes are
+	 * applied, against this feature evaluator's own state
+	 * @param context The shared information about the change
+	 * @return true if the document changes that are about to occur cause the evaluation function
+	 * 			to trigger; false otherwise.
+	 */
+	public boolean evaluateDocumentBeforeChange(DocumentChangeContext context) {
+		return evaluateDocumentBeforeChange(context, getOwnState());
+	}
+
+	/**
+	 * Evaluates what changes will be made to the text within a document before the changes are
+	 * applied. The Evaluator always calls this version, with a context shared by all feature
+	 * evaluators. Feature evaluations that only need the contents of the line before the change
+	 * do not have to override this; they are captured for them and carried over to the context
+	 * of the applied change.
+	 * @param context The shared information about the change
+	 * @param state The state built up from the document's earlier events
+	 * @return true if the document changes that are about to occur cause the evaluation function
+	 * 			to trigger; false otherwise.
+	 */
+	public boolean evaluateDocumentBeforeChange(DocumentChangeContext context, FeatureEvaluatorState state) {
 		return false;
 	}
 
@@ -48,6 +225,155 @@ public abstract class FeatureEvaluator {
 		return false;
 	}
 
+	/**
+	 * Evaluates changes to the annotation model of a document/editor window, given a
+	 * classification of the document's annotations, against this feature evaluator's own state
+	 * @param model The annotation model attached to the document window
+	 * @param classifier The up to date classification of the annotation model's annotations
+	 * @return boolean true if the annotation model changes cause the feature to be triggered;
+	 * 			false otherwise
+	 */
+	public boolean evaluateAnnotationModelChanges(IAnnotationModel model, AnnotationClassifier classifier) {
+		return evaluateAnnotationModelChanges(model, classifier, getOwnState());
+	}
+
+	/**
+	 * Evaluates changes to the annotation model of a document/editor window, given the Evaluator's
+	 * classification of the document's annotations. The Evaluator always calls this version, after
+	 * bringing the classification up to date. Feature evaluations that only need to know how many
+	 * annotations of a kind exist should override this method and read the classifier's counts
+	 * rather than walk the annotation model themselves; by default the whole annotation model is
+	 * evaluated.
+	 * @param model The annotation model attached to the document window
+	 * @param classifier The up to date classification of the annotation model's annotations
+	 * @param state The state built up from the document's earlier events
+	 * @return boolean true if the annotation model changes cause the feature to be triggered;
+	 * 			false otherwise
+	 */
+	public boolean evaluateAnnotationModelChanges(IAnnotationModel model, AnnotationClassifier classifier,
+			FeatureEvaluatorState state) {
+		return evaluateAnnotationModelChanges(model);
+	}
+
+	/**
+	 * Evaluates the document after it has been saved, against this feature evaluator's own state
+	 * @return boolean true if saving the document causes the feature to be triggered; false otherwise
+	 */
+	public boolean evaluateOnSave() {
+		return evaluateOnSave(getOwnState());
+	}
+
+	/**
+	 * Evaluates the document after it has been saved. Called only for the document that was
+	 * saved, once any annotation changes still waiting to be evaluated have been taken into
+	 * account.
+	 * @param state The state built up from the document's earlier events
+	 * @return boolean true if saving the document causes the feature to be triggered; false otherwise
+	 */
+	public boolean evaluateOnSave(FeatureEvaluatorState state) {
+		return false;
+	}
+
+	/**
+	 * Copies the fields of a document's state that this feature evaluator changed while
+	 * evaluating a change in a background job, from the job's private copy of the state back to
+	 * the document's state. Called on the UI thread, and only if the document's state has not been
+	 * reset since the copy was made. Deferred feature evaluations that keep state must override
+	 * this and copy their own fields.
+	 * @param from The job's copy of the state
+	 * @param to The document's state
+	 */
+	public void commitDeferredState(FeatureEvaluatorState from, FeatureEvaluatorState to) {
+	}
+
+	/**
+	 * Resets the state this feature evaluator has built up from earlier document changes in its
+	 * own state
+	 */
+	public void rebaseline() {
+		rebaseline(getOwnState());
+	}
+
+	/**
+	 * Resets any state this feature evaluator has built up from earlier document changes. Called
+	 * after a stretch of changes that were not evaluated (e.g. a format or refactoring), so that
+	 * the next change is not compared against out of date information, and when the feature is
+	 * enabled again for a document.
+	 * @param state The state built up from the document's earlier events
+	 */
+	public void rebaseline(FeatureEvaluatorState state) {
+	}
+
+	/**
+	 * @return FeatureEvaluatorDriver The driver of this feature evaluator when it is driven directly
+	 * @throws IllegalStateException If this is a shared instance, which is only driven by the
+	 * 			Evaluator, with the state of each document
+	 */
+	protected FeatureEvaluatorDriver getDriver() {
+		if (this.driver == null) {
+			throw new IllegalStateException("Feature evaluator " + this.featureID +
+					" is shared and must be passed the state of a document");
+		}
+		return this.driver;
+	}
+
+	/**
+	 * @return FeatureEvaluatorState The state this feature evaluator evaluates against when it is
+	 * 			driven directly
+	 */
+	protected FeatureEvaluatorState getOwnState() {
+		return getDriver().getState();
+	}
+
+	/**
+	 * @return IDocument The document this feature evaluator evaluates changes in when it is driven
+	 * 			directly
+	 */
+	protected IDocument getDocument() {
+		return getDriver().getDocument();
+	}
+
+	/**
+	 * @return The kinds of events this feature evaluator consumes, as a combination of the
+	 * 			interest constants
+	 */
+	public int getInterests() {
+		return this.interests;
+	}
+
+	/**
+	 * @param eventKind One of the interest constants
+	 * @return true if this feature evaluator consumes the given kind of event; false otherwise
+	 */
+	public boolean isInterestedIn(int eventKind) {
+		return (this.interests & eventKind) != 0;
+	}
+
+	/**
+	 * @return EvaluationTier The tier this feature evaluator's evaluation of document changes is
+	 * 			scheduled in
+	 */
+	public EvaluationTier getTier() {
+		return this.tier;
+	}
+
+	/**
+	 * @return The kinds of document changes this feature evaluator is passed, as a combination of
+	 * 			the DocumentChangeContext content constants
+	 */
+	public int getContentFilter() {
+		return this.contentFilter;
+	}
+
+	/**
+	 * @param contentKinds The kinds of content of a document change, as classified by
+	 * 			DocumentChangeContext
+	 * @return true if the change can trigger or affect this feature evaluator; false otherwise
+	 */
+	public boolean matchesContent(int contentKinds) {
+		return (this.contentFilter & contentKinds) != 0;
+	}
+
 	/**
 	 * @return The String representing the unique feature ID of this feature
 	 */
@@ -0,0 +1,98 @@
+package main.evaluators;
+
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+
+/**
+ * Drives a single feature evaluator directly against one document, the way the Evaluator would,
+ * outside of an Evaluator (e.g. in unit tests). The driver owns the document's
+ * FeatureEvaluatorState, and builds the context of each change from the document, carrying the
+ * line contents captured before a change over to the evaluation of the applied change.
+ *
+ * A feature evaluator constructed with a document creates a driver of its own, which its
+ * evaluation methods that take no state delegate to. Shared feature evaluators, driven by the
+ * Evaluator, have none. A driver is not thread-safe, and should only be used on one thread.
+ */
+public class FeatureEvaluatorDriver {
+
+	/** The feature evaluator being driven */
+	private final FeatureEvaluator featureEvaluator;
+	/** The document in which changes are evaluated */
+	private final IDocument document;
+	/** The state the feature evaluator builds up from the document's events */
+	private final FeatureEvaluatorState state;
+	/** Context built by the last call to evaluateDocumentBeforeChange(DocumentEvent) */
+	private DocumentChangeContext beforeChangeContext;
+
+	/**
+	 * Constructs a driver of the given feature evaluator, with a state no events have been
+	 * evaluated for
+	 * @param featureEvaluator The feature evaluator to drive
+	 * @param document The document in which changes are evaluated
+	 */
+	public FeatureEvaluatorDriver(FeatureEvaluator featureEvaluator, IDocument document) {
+		this.featureEvaluator = featureEvaluator;
+		this.document = document;
+		this.state = new FeatureEvaluatorState();
+	}
+
+	/**
+	 * Evaluates changes made to the text within the document, given the time the change was made.
+	 * The change is only passed to the feature evaluator if its content filter matches. The
+	 * deferred pass of a deferred feature evaluator is run right after, if it needs one, as the
+	 * Evaluator does when there is no deferred evaluation delay.
+	 * @param event The document change data
+	 * @param timeStamp The time, in milliseconds, at which the user made the change
+	 * @return boolean true if the changes cause the feature to be triggered; false otherwise
+	 */
+	public boolean evaluateDocumentChanges(DocumentEvent event, long timeStamp) {
+		DocumentChangeContext context = DocumentChangeContext.afterChange(this.beforeChangeContext,
+				this.document, event);
+		this.beforeChangeContext = null;
+		if (!this.featureEvaluator.matchesContent(context.getContentKinds())) {
+			return false;
+		}
+		boolean triggered = this.featureEvaluator.evaluateDocumentChanges(context, this.state, timeStamp);
+		if (this.featureEvaluator.getTier() == EvaluationTier.DEFERRED &&
+				this.featureEvaluator.needsDeferredEvaluation(context, this.state)) {
+			triggered |= this.featureEvaluator.evaluateDeferredChanges(context, this.state, timeStamp);
+		}
+		return triggered;
+	}
+
+	/**
+	 * Evaluates what changes will be made to the text within the document before the changes are
+	 * applied. The contents of the changed line are captured if the feature evaluator is
+	 * interested in changes before they are applied, and carried over to the evaluation of the
+	 * applied change.
+	 * @param event The document change data
+	 * @return true if the document changes that are about to occur cause the evaluation function
+	 * 			to trigger; false otherwise.
+	 */
+	public boolean evaluateDocumentBeforeChange(DocumentEvent event) {
+		DocumentChangeContext context = new DocumentChangeContext(this.document, event);
+		this.beforeChangeContext = context;
+		if (!this.featureEvaluator.matchesContent(context.getContentKinds())) {
+			return false;
+		}
+		if (this.featureEvaluator.isInterestedIn(FeatureEvaluator.BEFORE_DOCUMENT_CHANGE)) {
+			context.captureLineBeforeChange();
+		}
+		return this.featureEvaluator.evaluateDocumentBeforeChange(context, this.state);
+	}
+
+	/**
+	 * @return IDocument The document in which changes are evaluated
+	 */
+	public IDocument getDocument() {
+		return this.document;
+	}
+
+	/**
+	 * @return FeatureEvaluatorState The state the feature evaluator builds up from the document's
+	 * 			events
+	 */
+	public FeatureEvaluatorState getState() {
+		return this.state;
+	}
+}
@@ -0,0 +1,75 @@
+package main.evaluators;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * The state that the feature evaluators build up from the events of a single document. Feature
+ * evaluators themselves hold no per-document state, so that a single instance of each can be
+ * shared by the Evaluators of all open documents; each Evaluator instead owns one of these
+ * records and passes it along with every event. Each feature evaluator only reads and writes its
+ * own fields.
+ *
+ * A document's changes may be evaluated on a background thread while its annotation changes,
+ * saves and rebaselining happen on the UI thread, so fields written on one of these paths and
+ * read on another are volatile.
+ */
+public class FeatureEvaluatorState {
+
+	/** Value used for a line number that is not known */
+	static final int INVALID_LINE = -2;
+	/** Value used for a time stamp that is not known */
+	static final long INVALID_TIME_STAMP = -1;
+
+	/** Last line commented out in the document, used by the BlockCommentEvaluator */
+	volatile int lastCommentedLine;
+	/** Time stamp of when the last line was commented out, used by the BlockCommentEvaluator */
+	volatile long lastCommentedLineTimeStamp;
+
+	/** Last line that had its indentation changed, used by the CorrectIndentationEvaluator */
+	volatile int lastIndentChangedLine;
+	/** Time stamp of when the last line had its indentation changed, used by the CorrectIndentationEvaluator */
+	volatile long lastIndentChangedLineTimeStamp;
+
+	/** Number of annotations reporting an unresolved type, used by the AddImportEvaluator */
+	volatile int unresolvedTypeCount;
+
+	/** Number of annotations reporting an unused import, used by the RemoveImportEvaluator */
+	volatile int unusedImportCount;
+
+	/** Names of the variables declared in the document, used by the GetterSetterEvaluator */
+	volatile Set<String> varNames;
+	/** Line number of the last method declaration line parsed for, used by the GetterSetterEvaluator */
+	volatile int lastLineChanged;
+
+	/**
+	 * Constructs the state of a document no events have been evaluated for
+	 */
+	public FeatureEvaluatorState() {
+		this.lastCommentedLine = INVALID_LINE;
+		this.lastCommentedLineTimeStamp = INVALID_TIME_STAMP;
+		this.lastIndentChangedLine = INVALID_LINE;
+		this.lastIndentChangedLineTimeStamp = INVALID_TIME_STAMP;
+		this.unresolvedTypeCount = 0;
+		this.unusedImportCount = 0;
+		this.varNames = Collections.emptySet();
+		this.lastLineChanged = -1;
+	}
+
+	/**
+	 * Constructs a copy of the given state. Used to let the deferred feature evaluators work on a
+	 * private copy in a background job, while the UI thread keeps using, and may reset, the
+	 * original.
+	 * @param state The state to copy
+	 */
+	public FeatureEvaluatorState(FeatureEvaluatorState state) {
+		this.lastCommentedLine = state.lastCommentedLine;
+		this.lastCommentedLineTimeStamp = state.lastCommentedLineTimeStamp;
+		this.lastIndentChangedLine = state.lastIndentChangedLine;
+		this.lastIndentChangedLineTimeStamp = state.lastIndentChangedLineTimeStamp;
+		this.unresolvedTypeCount = state.unresolvedTypeCount;
+		this.unusedImportCount = state.unusedImportCount;
+		this.varNames = state.varNames;
+		this.lastLineChanged = state.lastLineChanged;
+	}
+}
@@ -0,0 +1,235 @@
+package main.evaluators;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.osgi.service.prefs.BackingStoreException;
+
+import main.activation.Activator;
+import main.interfaces.EvaluationSettings;
+import main.interfaces.FeatureID;
+
+/**
+ * Decides when the user has learned a feature, so that it no longer needs to be evaluated. A
+ * feature is retired once the user has been notified about it, or has been seen using it (by
+ * running one of its commands), as many times as the limits in the EvaluationSettings allow.
+ *
+ * The counts and the retired features are stored in the plugin's instance scope preferences, so
+ * a retired feature stays retired across restarts. Counts are only updated in memory as they
+ * change; the preferences are written out when a feature is retired or reset, and when the
+ * EvaluatorManager stops. A retired feature is brought back with resetRetirement(String).
+ * Notifications and uses may be recorded from
+ * any thread; each count is incremented atomically, and a feature is reported as newly retired
+ * exactly once.
+ */
+public class FeatureRetirementPolicy {
+
+	/** Preference key prefix for the number of notifications of a feature */
+	private static final String NOTIFICATION_COUNT_KEY = "retirement.notifications.";
+	/** Preference key prefix for the number of times a feature was used */
+	private static final String ADOPTION_COUNT_KEY = "retirement.adoptions.";
+	/** Preference key prefix for whether a feature is retired */
+	private static final String RETIRED_KEY = "retirement.retired.";
+
+	/** IDs of the Eclipse commands whose use shows that the user knows a feature, mapped to the feature's ID */
+	private static final Map<String, String> ADOPTION_COMMANDS;
+	static {
+		Map<String, String> commands = new HashMap<String, String>();
+		commands.put("org.eclipse.jdt.ui.edit.text.java.toggle.comment", FeatureID.BLOCK_COMMENT_FEATURE_ID);
+		commands.put("org.eclipse.jdt.ui.edit.text.java.add.block.comment", FeatureID.BLOCK_COMMENT_FEATURE_ID);
+		commands.put("org.eclipse.jdt.ui.edit.text.java.add.import", FeatureID.ADD_IMPORT_FEATURE_ID);
+		commands.put("org.eclipse.jdt.ui.edit.text.java.organize.imports", FeatureID.REMOVE_IMPORT_FEATURE_ID);
+		commands.put("org.eclipse.jdt.ui.edit.text.java.indent", FeatureID.CORRECT_INDENTATION_FEATURE_ID);
+		commands.put("org.eclipse.ui.edit.text.removeTrailingWhitespace", FeatureID.TRAILING_WHITE_SPACE_FEATURE_ID);
+		commands.put("org.eclipse.jdt.ui.edit.text.java.create.getter.setter", FeatureID.GETTER_SETTER_FEATURE_ID);
+		ADOPTION_COMMANDS = Collections.unmodifiableMap(commands);
+	}
+
+	/** Number of times the user has been notified about each feature */
+	private Map<String, Integer> notificationCounts;
+	/** Number of times the user has been seen using each feature */
+	private Map<String, Integer> adoptionCounts;
+	/** IDs of the features that have been retired */
+	private Set<String> retiredFeatureIDs;
+	/** Preferences the policy is stored in, or null if they are not available */
+	private volatile IEclipsePreferences preferences;
+
+	/**
+	 * Constructs a FeatureRetirementPolicy with no notifications, adoptions, or retired features.
+	 * Call load() to restore the stored state.
+	 */
+	public FeatureRetirementPolicy() {
+		this.notificationCounts = new ConcurrentHashMap<String, Integer>();
+		this.adoptionCounts = new ConcurrentHashMap<String, Integer>();
+		this.retiredFeatureIDs = ConcurrentHashMap.newKeySet();
+	}
+
+	/**
+	 * @return The IDs of the Eclipse commands whose use shows that the user knows a feature,
+	 * 			mapped to the ID of that feature
+	 */
+	public static Map<String, String> getAdoptionCommands() {
+		return ADOPTION_COMMANDS;
+	}
+
+	/**
+	 * Restores the counts and retired features stored in the instance scope preferences. If the
+	 * preferences are not available (e.g. outside a running platform), the policy starts empty and
+	 * is not stored.
+	 */
+	public void load() {
+		try {
+			this.preferences = InstanceScope.INSTANCE.getNode(Activator.PLUGIN_ID);
+		} catch (RuntimeException | LinkageError e) {
+			this.preferences = null;
+			return;
+		}
+
+		for (String featureID : FeatureID.getAllFeatureIDs()) {
+			this.notificationCounts.put(featureID, this.preferences.getInt(NOTIFICATION_COUNT_KEY + featureID, 0));
+			this.adoptionCounts.put(featureID, this.preferences.getInt(ADOPTION_COUNT_KEY + featureID, 0));
+			if (this.preferences.getBoolean(RETIRED_KEY + featureID, false)) {
+				this.retiredFeatureIDs.add(featureID);
+			}
+		}
+	}
+
+	/**
+	 * Counts a notification about a feature, and retires the feature if the user has now been
+	 * notified about it often enough
+	 * @param featureID The ID of the feature the user was notified about
+	 * @param settings The settings holding the retirement limits
+	 * @return true if the feature was retired by this notification; false otherwise
+	 */
+	public boolean recordNotification(String featureID, EvaluationSettings settings) {
+		int count = increment(this.notificationCounts, NOTIFICATION_COUNT_KEY, featureID);
+		return retireIfReached(featureID, count, settings.getRetirementNotificationLimit());
+	}
+
+	/**
+	 * Counts a use of a feature, and retires the feature if the user has now used it often enough
+	 * @param featureID The ID of the feature the user used
+	 * @param settings The settings holding the retirement limits
+	 * @return true if the feature was retired by this use; false otherwise
+	 */
+	public boolean recordAdoption(String featureID, EvaluationSettings settings) {
+		int count = increment(this.adoptionCounts, ADOPTION_COUNT_KEY, featureID);
+		return retireIfReached(featureID, count, settings.getRetirementAdoptionLimit());
+	}
+
+	/**
+	 * Forgets the notifications and uses counted for a feature, and un-retires it if it was
+	 * retired, so that it is evaluated and suggested again
+	 * @param featureID The ID of the feature to reset
+	 * @return true if the feature was retired; false otherwise
+	 */
+	public boolean resetRetirement(String featureID) {
+		boolean wasRetired = this.retiredFeatureIDs.remove(featureID);
+		boolean counted = this.notificationCounts.remove(featureID) != null;
+		counted |= this.adoptionCounts.remove(featureID) != null;
+		IEclipsePreferences store = this.preferences;
+		if (store != null && (wasRetired || counted)) {
+			store.remove(NOTIFICATION_COUNT_KEY + featureID);
+			store.remove(ADOPTION_COUNT_KEY + featureID);
+			store.remove(RETIRED_KEY + featureID);
+			save();
+		}
+		return wasRetired;
+	}
+
+	/**
+	 * @param featureID The ID of a feature
+	 * @return true if the feature has been retired; false otherwise
+	 */
+	public boolean isRetired(String featureID) {
+		return this.retiredFeatureIDs.contains(featureID);
+	}
+
+	/**
+	 * @return The IDs of the features that have been retired
+	 */
+	public Set<String> getRetiredFeatureIDs() {
+		return new LinkedHashSet<String>(this.retiredFeatureIDs);
+	}
+
+	/**
+	 * @param featureID The ID of a feature
+	 * @return The number of times the user has been notified about the feature
+	 */
+	public int getNotificationCount(String featureID) {
+		Integer count = this.notificationCounts.get(featureID);
+		return count == null ? 0 : count;
+	}
+
+	/**
+	 * @param featureID The ID of a feature
+	 * @return The number of times the user has been seen using the feature
+	 */
+	public int getAdoptionCount(String featureID) {
+		Integer count = this.adoptionCounts.get(featureID);
+		return count == null ? 0 : count;
+	}
+
+	/**
+	 * Increments a feature's count, and puts the new value in the preferences without writing them
+	 * out
+	 * @param counts The counts to increment
+	 * @param keyPrefix The preference key prefix of the counts
+	 * @param featureID The ID of the feature to increment the count of
+	 * @return The new count
+	 */
+	private int increment(Map<String, Integer> counts, String keyPrefix, String featureID) {
+		int count = counts.merge(featureID, 1, Integer::sum);
+		IEclipsePreferences store = this.preferences;
+		if (store != null) {
+			store.putInt(keyPrefix + featureID, count);
+		}
+		return count;
+	}
+
+	/**
+	 * Retires a feature if its count has reached the given limit, and writes out the policy if it
+	 * was
+	 * @param featureID The ID of the feature
+	 * @param count The feature's count
+	 * @param limit The count at which the feature is retired; 0 never retires it
+	 * @return true if the feature was retired by this call; false otherwise
+	 */
+	private boolean retireIfReached(String featureID, int count, int limit) {
+		boolean retired = limit > 0 && count >= limit && this.retiredFeatureIDs.add(featureID);
+		IEclipsePreferences store = this.preferences;
+		if (retired && store != null) {
+			store.putBoolean(RETIRED_KEY + featureID, true);
+			save();
+		}
+		return retired;
+	}
+
+	/**
+	 * Writes the counts and retired features out to the preference store. Does nothing if the
+	 * preferences are not available.
+	 */
+	public void save() {
+		IEclipsePreferences store = this.preferences;
+		if (store == null) {
+			return;
+		}
+		try {
+			store.flush();
+		} catch (BackingStoreException e) {
+			Activator activator = Activator.getDefault();
+			if (activator != null) {
+				activator.getLog().log(new Status(IStatus.WARNING, Activator.PLUGIN_ID,
+						"Could not store the feature retirement state", e));
+			}
+		}
+	}
+}
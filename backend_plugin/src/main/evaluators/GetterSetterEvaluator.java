@@ -1,14 +1,15 @@
 package main.evaluators;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTParser;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.dom.VariableDeclaration;
 import org.eclipse.jface.text.BadLocationException;
-import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.IDocument;
 
 import main.ASTVisitors.VariableDeclarationFinder;
@@ -16,111 +17,192 @@ import main.interfaces.FeatureID;
 
 /**
  * Evaluates DocumentEvent changes to determine if the user is manually creating getter and setter
- * methods for previously declared variables. Parses the AST of a document whenever the user is
- * manually typing new method declarations
+ * methods for previously declared variables. Each change to a method declaration line is checked
+ * against the variable names known from the last parse of the document; the document is parsed
+ * again, once the editor is idle, whenever the user starts typing a new method declaration
  */
 public class GetterSetterEvaluator extends FeatureEvaluator {
 
-    	/** Stores all variable names declared in the document */
-	private Set<String> varNames;
-	/** Stores the line number of the last line that was changed in the document */
-	private int lastLineChanged;
-
 	/**
-	 * Constructor
-	 * @param document IDocument that this evaluator is attached to
+	 * Constructor. The variable names declared in the document, and the last line that was
+	 * parsed for, are kept in the document's FeatureEvaluatorState.
+	 * @param document IDocument that this evaluator is attached to, or null for the shared instance
 	 */
 	public GetterSetterEvaluator(IDocument document) {
-		this.featureID = FeatureID.GETTER_SETTER_FEATURE_ID;
-		this.document = document;
-		this.varNames = new HashSet<String>();
+		// Parsing the document is too expensive to do while the user is typing, so only the
+		// parse is deferred
+		super(document, FeatureID.GETTER_SETTER_FEATURE_ID, DOCUMENT_CHANGE, DocumentChangeContext.ANY_CONTENT,
+				EvaluationTier.DEFERRED);
+	}
+
+
+	/**
+	 * Forgets the known variable names, so the document is parsed again the next time a method
+	 * declaration is edited
+	 * @param state The state of the document
+	 */
+	@Override
+	public void rebaseline(FeatureEvaluatorState state) {
+		state.varNames = Collections.emptySet();
 
-		// Set the last line changed to an illegal document line number initially
-		this.lastLineChanged = -1;
+		// Set the last line changed to an illegal document line number
+		state.lastLineChanged = -1;
 	}
 
+	/**
+	 * Keeps the variable names parsed by the deferred job, so the document is not parsed again
+	 * while the same line is being edited
+	 * @param from The job's copy of the state
+	 * @param to The document's state
+	 */
+	@Override
+	public void commitDeferredState(FeatureEvaluatorState from, FeatureEvaluatorState to) {
+		to.varNames = from.varNames;
+		to.lastLineChanged = from.lastLineChanged;
+	}
 
 	/**
-	 * Checks if the event added a get or set method regarding a previously declared variable
-	 * @param event The document change data
+	 * Checks if the event added a get or set method regarding a previously declared variable,
+	 * using the variable names known from the last parse of the document
+	 * @param context The shared information about the change
+	 * @param state The state of the document
+	 * @param timeStamp The time, in milliseconds, at which the user made the change
 	 */
 	@Override
-	public boolean evaluateDocumentChanges(DocumentEvent event) {
+	public boolean evaluateDocumentChanges(DocumentChangeContext context, FeatureEvaluatorState state,
+			long timeStamp) {
 		try {
-			return checkMethodDeclaration(event, this.document.getLineOfOffset(event.getOffset()));
+			String lineText = getMethodDeclaration(context);
+			if (lineText != null) {
+
+				// Check if the change is a get or set with a variable
+				return checkGetterOrSetter(lineText, state.varNames);
+			}
 		} catch (BadLocationException e) {}
 		return false;
 	}
 
 	/**
-	 * Checks that the document event added get[varName], get_[varName], set[varName], or
-	 * set_[varName]
-	 * @param event The document change data
-	 * @param line The line number where the change occurred
-	 * @return true if a get or set method was added for a previously declared variable; false
-	 * 			otherwise
+	 * Parses the document for its variable names if the latest change was made to a method
+	 * declaration line that the document has not been parsed for yet. The line may have been
+	 * completed before the parse, so it is checked once more, up to the start of its parameter
+	 * list, against the variable names that were not known to the evaluation of its changes.
+	 * @param context The shared information about the change
+	 * @param state The state of the document
+	 * @param timeStamp The time, in milliseconds, at which the user made the change
 	 */
-	private boolean checkMethodDeclaration(DocumentEvent event, int line) {
+	@Override
+	public boolean evaluateDeferredChanges(DocumentChangeContext context, FeatureEvaluatorState state,
+			long timeStamp) {
 		try {
-			int lineOffset = document.getLineOffset(line);
-			int lineLength = document.getLineLength(line);
-			String lineText = document.get(lineOffset, lineLength).toLowerCase();
-			lineText = trimStartAndNewLine(lineText);
-
-			// check for public or protected at the start of the line
-			if (lineText.startsWith("public ") || lineText.startsWith("protected ")) {
+			int line = context.getLine();
+			String lineText = getMethodDeclaration(context);
 
-				// check if we've already parsed the AST for this line change
-				if (this.lastLineChanged != line) {
+			// check if we've already parsed the AST for this line change
+			if (lineText == null || state.lastLineChanged == line) {
+				return false;
+			}
 
-				    	// If not, then update the variable names while editing this line
-					// This operation is costly, so we limit it to only when it's necessary
-					updateKnownVariableNames();
-					this.lastLineChanged = line;
-				}
+			// If not, then update the variable names while editing this line
+			// This operation is costly, so we limit it to only when it's necessary.
+			// If a newer change cancels the parse, the line is parsed again next time
+			Set<String> knownNames = state.varNames;
+			if (!updateKnownVariableNames(context, state)) {
+				return false;
+			}
+			state.lastLineChanged = line;
 
-				// Check if the change is a get or set with a variable
-				return checkGetterOrSetter(lineText);
+			Set<String> newNames = new HashSet<String>(state.varNames);
+			newNames.removeAll(knownNames);
+			int parameterListStart = lineText.indexOf('(');
+			if (parameterListStart >= 0) {
+				lineText = lineText.substring(0, parameterListStart).trim();
 			}
+			return checkGetterOrSetter(lineText, newNames);
 		} catch (BadLocationException e) {}
 		return false;
 	}
 
 	/**
-	 * Creates an AST from the current document values and stores all current variable names in
-	 * varNames
+	 * Asks for a deferred pass only when a method declaration line is changed that the document has
+	 * not been parsed for yet
+	 * @param context The shared information about the change
+	 * @param state The state of the document
 	 */
-	private void updateKnownVariableNames() {
+	@Override
+	public boolean needsDeferredEvaluation(DocumentChangeContext context, FeatureEvaluatorState state) {
+		try {
+			return state.lastLineChanged != context.getLine() && getMethodDeclaration(context) != null;
+		} catch (BadLocationException e) {}
+		return false;
+	}
 
-		// clear out all previous variable names
-		this.varNames = new HashSet<String>();
+	/**
+	 * @param context The shared information about the change
+	 * @return The lower case text of the changed line, without its leading white space, if it
+	 * 			starts with public or protected; null otherwise
+	 * @throws BadLocationException If the changed line cannot be read
+	 */
+	private String getMethodDeclaration(DocumentChangeContext context) throws BadLocationException {
+		String lineText = context.getLineText().toLowerCase();
+		lineText = trimStartAndNewLine(lineText);
+
+		// check for public or protected at the start of the line
+		if (lineText.startsWith("public ") || lineText.startsWith("protected ")) {
+			return lineText;
+		}
+		return null;
+	}
+
+	/**
+	 * Creates an AST from the current document values and stores all current variable names in
+	 * the document's state. Both the parse and the traversal of the AST stop early if the
+	 * progress monitor of the context is cancelled, in which case the state is left untouched.
+	 * @param context The shared information about the change
+	 * @param state The state of the document
+	 * @return true if the variable names were updated; false if the monitor was cancelled
+	 */
+	private boolean updateKnownVariableNames(DocumentChangeContext context, FeatureEvaluatorState state) {
+		IProgressMonitor monitor = context.getProgressMonitor();
 
 		// Create the AST through the ASTParser and find all variable declarations
 		ASTParser parser = ASTParser.newParser(AST.JLS11);
-		parser.setSource(document.get().toCharArray());
-		CompilationUnit cu = (CompilationUnit)parser.createAST(null);
+		parser.setSource(context.getDocument().get().toCharArray());
+		CompilationUnit cu = (CompilationUnit)parser.createAST(monitor);
+		if (monitor.isCanceled()) {
+			return false;
+		}
 		cu.recordModifications();
 
 		// Create a ASTVisitor that will traverse the parsed AST and locate all variable
 		// declarations
-		VariableDeclarationFinder varFinder = new VariableDeclarationFinder();
+		VariableDeclarationFinder varFinder = new VariableDeclarationFinder(monitor);
 		cu.accept(varFinder);
+		if (monitor.isCanceled()) {
+			return false;
+		}
+
+		// replace all previous variable names
+		Set<String> names = new HashSet<String>();
 		for(VariableDeclaration var : varFinder.getVariables()) {
 
 			// Skip empty strings
 			if (var.getName().toString().length() > 0) {
-				varNames.add(var.getName().toString().toLowerCase());
+				names.add(var.getName().toString().toLowerCase());
 			}
 		}
+		state.varNames = names;
+		return true;
 	}
 
 	/**
 	 * Checks if the method declaration contains get, get_, set, set_ and a variable name
 	 * @param lineText The text of the current line edited in the document
+	 * @param varNames The variable names declared in the document
 	 * @return true if the line appears to be a get or set method for a declared variable; false
 	 * 			otherwise
 	 */
-	private boolean checkGetterOrSetter(String lineText) {
+	private boolean checkGetterOrSetter(String lineText, Set<String> varNames) {
 		// first check that it starts with get
 		String prefix = "";
 		boolean found = false;
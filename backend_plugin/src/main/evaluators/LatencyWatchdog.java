@@ -0,0 +1,110 @@
+package main.evaluators;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import main.interfaces.EvaluationSettings;
+
+/**
+ * Watches how long the feature evaluators of one document take, and decides when one of them has
+ * to be quarantined for that document because it keeps exceeding the latency budget. The watchdog
+ * is off unless a latency budget is set in the EvaluationSettings.
+ *
+ * A quarantine is not permanent: it is lifted, and the strikes are forgotten, when the Evaluator
+ * re-baselines the document (e.g. when one of its windows is shown again after being hidden, or
+ * a rewrite session ends), and a document that is closed and reopened gets a new watchdog.
+ *
+ * Calls may be recorded from the background worker; quarantining and lifting quarantines happen
+ * on the UI thread.
+ */
+public class LatencyWatchdog {
+
+	/** Number of calls in which each feature's evaluator exceeded the latency budget */
+	private final Map<String, Integer> strikes;
+	/** IDs of the features whose feature evaluators are quarantined, in the order they were quarantined */
+	private final Set<String> quarantinedFeatureIDs;
+
+	/**
+	 * Constructs a LatencyWatchdog with no strikes and no quarantined features
+	 */
+	public LatencyWatchdog() {
+		this.strikes = new ConcurrentHashMap<String, Integer>();
+		this.quarantinedFeatureIDs = Collections.synchronizedSet(new LinkedHashSet<String>());
+	}
+
+	/**
+	 * Records how long a call to a feature's evaluator took, and counts a strike if it exceeded
+	 * the latency budget
+	 * @param featureID The ID of the feature whose evaluator was called
+	 * @param elapsedMillis How long, in milliseconds, the call took
+	 * @param settings The settings holding the latency budget and the strike limit
+	 * @return true if this call used up the feature evaluator's last strike, and it should be
+	 * 			quarantined; false otherwise
+	 */
+	public boolean recordCall(String featureID, long elapsedMillis, EvaluationSettings settings) {
+		int budget = settings.getEvaluatorLatencyBudget();
+		if (budget <= 0 || elapsedMillis <= budget) {
+			return false;
+		}
+		return this.strikes.merge(featureID, 1, Integer::sum) == settings.getQuarantineStrikeLimit();
+	}
+
+	/**
+	 * Marks a feature's evaluator as quarantined
+	 * @param featureID The ID of the feature
+	 */
+	public void quarantine(String featureID) {
+		this.quarantinedFeatureIDs.add(featureID);
+	}
+
+	/**
+	 * Lifts every quarantine and forgets all strikes, so that the feature evaluators start over
+	 * @return The IDs of the features whose quarantine was lifted, in the order they were quarantined
+	 */
+	public Set<String> liftQuarantine() {
+		Set<String> lifted;
+		synchronized (this.quarantinedFeatureIDs) {
+			lifted = new LinkedHashSet<String>(this.quarantinedFeatureIDs);
+			this.quarantinedFeatureIDs.clear();
+		}
+		this.strikes.clear();
+		return lifted;
+	}
+
+	/**
+	 * Forgets the strikes of a feature, e.g. because it was disabled
+	 * @param featureID The ID of the feature
+	 */
+	public void forget(String featureID) {
+		this.strikes.remove(featureID);
+	}
+
+	/**
+	 * @param featureID The ID of a feature
+	 * @return The number of calls in which the feature's evaluator exceeded the latency budget
+	 */
+	public int getStrikes(String featureID) {
+		Integer count = this.strikes.get(featureID);
+		return count == null ? 0 : count;
+	}
+
+	/**
+	 * @param featureID The ID of a feature
+	 * @return true if the feature's evaluator is quarantined; false otherwise
+	 */
+	public boolean isQuarantined(String featureID) {
+		return this.quarantinedFeatureIDs.contains(featureID);
+	}
+
+	/**
+	 * @return The IDs of the features whose evaluators are quarantined
+	 */
+	public Set<String> getQuarantinedFeatureIDs() {
+		synchronized (this.quarantinedFeatureIDs) {
+			return new LinkedHashSet<String>(this.quarantinedFeatureIDs);
+		}
+	}
+}
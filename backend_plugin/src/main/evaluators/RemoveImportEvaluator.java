@@ -1,8 +1,7 @@
 package main.evaluators;
 
-import java.util.Iterator;
-
-import org.eclipse.jface.text.source.Annotation;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.source.IAnnotationModel;
 
 import main.interfaces.FeatureID;
@@ -14,47 +13,76 @@ import main.interfaces.FeatureID;
  */
 public class RemoveImportEvaluator extends FeatureEvaluator {
 
-    	/** Flag that's set when an unused import statement annotation exists in the document */
-	private boolean activeUnusedImportStatement;
-
 	/**
-	 * Constructor
+	 * Constructor for a RemoveImportEvaluator driven directly. It never reads the document, so
+	 * an empty one is used.
 	 */
 	public RemoveImportEvaluator() {
-		this.featureID = FeatureID.REMOVE_IMPORT_FEATURE_ID;
+		this(new Document());
+	}
+
+	/**
+	 * Constructor. The number of unused import statement annotations that exist in the document
+	 * is kept in the document's FeatureEvaluatorState.
+	 * @param document The document to evaluate changes in, or null for the shared instance
+	 */
+	public RemoveImportEvaluator(IDocument document) {
+		super(document, FeatureID.REMOVE_IMPORT_FEATURE_ID, ANNOTATION_MODEL_CHANGE | SAVE,
+				DocumentChangeContext.ANY_CONTENT, EvaluationTier.INLINE);
 	}
 
 	/**
-	 * Updates this feature evaluator's boolean flag indicating whether unused imports exist in the
-	 * document. This should never trigger the feature by itself, so always returns false.
+	 * Updates this feature evaluator's count of unused import annotations by classifying every
+	 * annotation in the given model. This should never trigger the feature by itself, so always
+	 * returns false.
 	 * @param model The annotation model attached to the document window
 	 * @return false
 	 */
 	@Override
 	public boolean evaluateAnnotationModelChanges(IAnnotationModel model) {
-		this.activeUnusedImportStatement = false;
-
-		// Iterate through the annotations in the document window
-		Iterator<Annotation> it = model.getAnnotationIterator();
-		while (it.hasNext()) {
-
-			// Check if any annotation is a valid, non-deleted unused import annotation
-			Annotation current = it.next();
-			if (!current.isMarkedDeleted() && current.getText() != null &&
-					current.getText().startsWith("The import") &&
-					current.getText().endsWith("never used")) {
-				this.activeUnusedImportStatement = true;
-				break;
-			}
-		}
+		AnnotationClassifier classifier = new AnnotationClassifier();
+		classifier.classifyAll(model);
+		return evaluateAnnotationModelChanges(model, classifier);
+	}
+
+	/**
+	 * Updates this feature evaluator's count of unused import annotations from the Evaluator's
+	 * shared classification. This should never trigger the feature by itself, so always returns
+	 * false.
+	 * @param model The annotation model attached to the document window
+	 * @param classifier The up to date classification of the annotation model's annotations
+	 * @param state The state of the document
+	 * @return false
+	 */
+	@Override
+	public boolean evaluateAnnotationModelChanges(IAnnotationModel model, AnnotationClassifier classifier,
+			FeatureEvaluatorState state) {
+		state.unusedImportCount = classifier.getCount(AnnotationCategory.UNUSED_IMPORT);
 		return false;
 	}
 
+	/**
+	 * Triggers the feature if the saved document still contains unused import statements
+	 * @param state The state of the document
+	 * @return true if there is an active unused import; false otherwise
+	 */
+	@Override
+	public boolean evaluateOnSave(FeatureEvaluatorState state) {
+		return state.unusedImportCount > 0;
+	}
+
 	/**
 	 * Returns whether the Eclipse workspace currently has an active unused import statement
 	 * @return true if there is an active unused import; false otherwise
 	 */
 	public boolean hasActiveUnusedImportStatement() {
-		return this.activeUnusedImportStatement;
+		return getOwnState().unusedImportCount > 0;
+	}
+
+	/**
+	 * @return The number of unused import annotations currently in the document
+	 */
+	public int getUnusedImportAnnotationCount() {
+		return getOwnState().unusedImportCount;
 	}
 }
@@ -0,0 +1,92 @@
+package main.evaluators;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * A lightweight serial queue that runs its tasks one at a time, in the order they were submitted,
+ * on a shared pool of threads. No thread is tied to the queue; while it has tasks, exactly one of
+ * them is handed to the pool at a time. Each Evaluator owns one, so the changes of a document stay
+ * ordered while many documents share a few threads. The pool can be switched while tasks are
+ * waiting (e.g. when the execution mode changes); the next task is only handed to the new pool
+ * once the running one has finished on the old pool, so tasks never overlap.
+ */
+public class SerialExecutor implements Executor {
+
+	/** Pool of threads the next task is handed to. Guarded by this executor's lock */
+	private Executor pool;
+	/** Tasks waiting for the running task to finish. Guarded by this executor's lock */
+	private final Queue<Runnable> tasks;
+	/** Task that has been handed to the pool, or null if none. Guarded by this executor's lock */
+	private Runnable active;
+
+	/**
+	 * Constructs a SerialExecutor
+	 * @param pool The pool of threads to run tasks on
+	 */
+	public SerialExecutor(Executor pool) {
+		this.pool = pool;
+		this.tasks = new ArrayDeque<Runnable>();
+	}
+
+	/**
+	 * Queues a task, to be run once every task submitted before it has finished. May be called
+	 * from any thread.
+	 * @param task The task to run
+	 */
+	@Override
+	public synchronized void execute(final Runnable task) {
+		this.tasks.add(() -> {
+			try {
+				task.run();
+			} finally {
+				scheduleNext();
+			}
+		});
+		if (this.active == null) {
+			scheduleNext();
+		}
+	}
+
+	/**
+	 * Switches the pool of threads that waiting and future tasks are handed to. A task that has
+	 * already been handed to the previous pool finishes there before the next one is handed over.
+	 * May be called from any thread.
+	 * @param pool The pool of threads to run tasks on
+	 */
+	public synchronized void setPool(Executor pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * @return The pool of threads the next task is handed to
+	 */
+	public synchronized Executor getPool() {
+		return this.pool;
+	}
+
+	/**
+	 * Hands the next waiting task, if any, to the pool. If the pool no longer accepts tasks (e.g.
+	 * because the EvaluatorManager was stopped), the waiting tasks are discarded.
+	 */
+	private synchronized void scheduleNext() {
+		this.active = this.tasks.poll();
+		if (this.active != null) {
+			try {
+				this.pool.execute(this.active);
+			} catch (RejectedExecutionException e) {
+				this.tasks.clear();
+				this.active = null;
+			}
+		}
+	}
+
+	/**
+	 * @return The number of tasks waiting to be run, not counting the one currently running
+	 */
+	public synchronized int getPendingTaskCount() {
+		return this.tasks.size();
+	}
+}
@@ -1,7 +1,6 @@
 package main.evaluators;
 
 import org.eclipse.jface.text.BadLocationException;
-import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.IDocument;
 
 import main.interfaces.FeatureID;
@@ -13,37 +12,34 @@ import main.interfaces.FeatureID;
  */
 public class TrailingWhiteSpaceEvaluator extends FeatureEvaluator {
 
-    	/** Stores the text of a line before the change is applied */
-	private String lineBeforeChange;
-
 	/**
 	 * Constructs a TrailingWhiteSpaceEvaluator
-	 * @param document The document to evaluate changes in
+	 * @param document The document to evaluate changes in, or null for the shared instance
 	 */
 	public TrailingWhiteSpaceEvaluator(IDocument document) {
-		this.featureID = FeatureID.TRAILING_WHITE_SPACE_FEATURE_ID;
-		this.document = document;
+		// Trailing white space can only be removed by a deletion
+		super(document, FeatureID.TRAILING_WHITE_SPACE_FEATURE_ID, BEFORE_DOCUMENT_CHANGE | DOCUMENT_CHANGE,
+				DocumentChangeContext.DELETION, EvaluationTier.INLINE);
 	}
 
 	/**
 	 * Evaluates document changes to see if the user is manually deleting all trailing white space
 	 * from a line
-	 * @param event The document change data
+	 * @param context The shared information about the change
+	 * @param state The state of the document
+	 * @param timeStamp The time, in milliseconds, at which the user made the change
 	 */
 	@Override
-	public boolean evaluateDocumentChanges(DocumentEvent event) {
+	public boolean evaluateDocumentChanges(DocumentChangeContext context, FeatureEvaluatorState state,
+			long timeStamp) {
 
 		try {
-			int line = document.getLineOfOffset(event.getOffset());
-			int startOffset = document.getLineOffset(line);
-			int length = document.getLineLength(line);
-
-			// Need to check up to length - 1 instead of length due to line feed char at end
-			String lineAfterChange = document.get(startOffset, length - 1);
 
 			// If the change event is a deletion, check whether only the line's whitespace has
 			// changed, and that the line no longer ends with whitespace
-			if (event.getText().length() == 0) {
+			if (context.getEvent().getText().length() == 0) {
+				String lineBeforeChange = withoutLastCharacter(context.getLineTextBeforeChange());
+				String lineAfterChange = withoutLastCharacter(context.getLineText());
 				return lineBeforeChange.trim().equals(lineAfterChange.trim()) &&
 						(lineBeforeChange.endsWith(" ") || lineBeforeChange.endsWith("\t")) &&
 						!(lineAfterChange.endsWith(" ") || lineAfterChange.endsWith("\t"));
@@ -54,20 +50,15 @@ public class TrailingWhiteSpaceEvaluator extends FeatureEvaluator {
 	}
 
 	/**
-	 * Stores the contents of the line before document changes are made
-	 * @param event The document change data
+	 * Removes the last character of a line's contents. Only the text up to length - 1 is checked,
+	 * due to the hidden line feed char at the end of the line
+	 * @param lineText The contents of a line, or null if they are unknown
+	 * @return The contents of the line without the last character, or "" if they are unknown
 	 */
-	@Override
-	public boolean evaluateDocumentBeforeChange(DocumentEvent event) {
-		try {
-			int line = document.getLineOfOffset(event.getOffset());
-			int startOffset = document.getLineOffset(line);
-			int length = document.getLineLength(line);
-
-			// Only check up to length - 1 due to hidden line feed char at the end of the line
-			this.lineBeforeChange = document.get(startOffset, length - 1);
-		} catch (BadLocationException e) {
+	private String withoutLastCharacter(String lineText) {
+		if (lineText == null || lineText.length() == 0) {
+			return "";
 		}
-		return false;
+		return lineText.substring(0, lineText.length() - 1);
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,26 @@
+package main.interfaces;
+
+/**
+ * What happens to a document change when asynchronous evaluation is on and the document's queue
+ * of changes waiting to be evaluated is full (see EvaluationSettings.setEventQueueCapacity).
+ * Whenever a waiting change is discarded without being evaluated, under any policy, the feature
+ * evaluators' state for that document is reset, since they missed a change.
+ */
+public enum BackpressurePolicy {
+
+	/**
+	 * The UI thread waits until the background evaluation has made room in the queue, so a burst
+	 * of edits is slowed down to the speed of evaluation. The wait is bounded: if no room is made
+	 * within a short timeout, the oldest waiting change is discarded as with DROP_OLDEST.
+	 */
+	BLOCK,
+
+	/** The oldest change waiting in the queue is discarded to make room for the new one */
+	DROP_OLDEST,
+
+	/**
+	 * A change waiting in the queue for the same line is replaced by the new one, since only the
+	 * latest state of a line matters. If the queue is still full, the oldest change is discarded.
+	 */
+	COLLAPSE
+}
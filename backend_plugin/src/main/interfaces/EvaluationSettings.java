@@ -0,0 +1,270 @@
+package main.interfaces;
+
+/**
+ * Holds the options that control how the backend evaluates user input. Each FeatureSuggestion
+ * owns a single EvaluationSettings object, and any changes made to it are picked up by the
+ * evaluators the next time they receive an event.
+ */
+public class EvaluationSettings {
+
+	/** Default settle delay, in milliseconds, for annotation model changes */
+	public static final int DEFAULT_ANNOTATION_SETTLE_DELAY = 200;
+	/** Default number of document changes that may wait to be evaluated in the background, per document */
+	public static final int DEFAULT_EVENT_QUEUE_CAPACITY = 64;
+	/** Default time, in milliseconds, a feature evaluator may take to evaluate a single event; the watchdog is off by default */
+	public static final int DEFAULT_EVALUATOR_LATENCY_BUDGET = 0;
+	/** Default number of times a feature evaluator may exceed its budget before it is quarantined */
+	public static final int DEFAULT_QUARANTINE_STRIKE_LIMIT = 3;
+	/** Default idle time, in milliseconds, after which deferred feature evaluators are run */
+	public static final int DEFAULT_DEFERRED_EVALUATION_DELAY = 300;
+	/** Default number of notifications about a feature after which the feature is retired */
+	public static final int DEFAULT_RETIREMENT_NOTIFICATION_LIMIT = 5;
+	/** Default number of uses of a feature after which the feature is retired */
+	public static final int DEFAULT_RETIREMENT_ADOPTION_LIMIT = 3;
+
+	/** Flag set when document changes should be evaluated on a background worker instead of the UI thread */
+	private volatile boolean asynchronousEvaluation;
+	/** How document changes are spread over background threads when asynchronous evaluation is on */
+	private volatile ExecutionMode executionMode;
+	/** Number of document changes that may wait to be evaluated in the background, per document */
+	private volatile int eventQueueCapacity;
+	/** What happens to a document change when its document's queue is full */
+	private volatile BackpressurePolicy backpressurePolicy;
+	/** Milliseconds without typing after which a burst of keystrokes is evaluated; 0 turns coalescing off */
+	private volatile int coalescingQuietWindow;
+	/** Milliseconds without annotation changes after which the annotation model is evaluated; 0 evaluates every change */
+	private volatile int annotationSettleDelay;
+	/** Milliseconds a feature evaluator may take to evaluate a single event; 0 turns the watchdog off */
+	private volatile int evaluatorLatencyBudget;
+	/** Number of events over budget after which a feature evaluator is quarantined for a document */
+	private volatile int quarantineStrikeLimit;
+	/** Milliseconds without document changes after which deferred feature evaluators are run; 0 runs them right away */
+	private volatile int deferredEvaluationDelay;
+	/** Number of notifications about a feature after which it is no longer evaluated; 0 never retires on notifications */
+	private volatile int retirementNotificationLimit;
+	/** Number of uses of a feature after which it is no longer evaluated; 0 never retires on use */
+	private volatile int retirementAdoptionLimit;
+
+	/**
+	 * Constructs an EvaluationSettings object holding the default options
+	 */
+	public EvaluationSettings() {
+		this.asynchronousEvaluation = false;
+		this.executionMode = ExecutionMode.SINGLE_WORKER;
+		this.eventQueueCapacity = DEFAULT_EVENT_QUEUE_CAPACITY;
+		this.backpressurePolicy = BackpressurePolicy.DROP_OLDEST;
+		this.coalescingQuietWindow = 0;
+		this.annotationSettleDelay = DEFAULT_ANNOTATION_SETTLE_DELAY;
+		this.evaluatorLatencyBudget = DEFAULT_EVALUATOR_LATENCY_BUDGET;
+		this.quarantineStrikeLimit = DEFAULT_QUARANTINE_STRIKE_LIMIT;
+		this.deferredEvaluationDelay = DEFAULT_DEFERRED_EVALUATION_DELAY;
+		this.retirementNotificationLimit = DEFAULT_RETIREMENT_NOTIFICATION_LIMIT;
+		this.retirementAdoptionLimit = DEFAULT_RETIREMENT_ADOPTION_LIMIT;
+	}
+
+	/**
+	 * @return true if document changes are evaluated on a background worker; false if they are
+	 * 			evaluated on the UI thread as they happen
+	 */
+	public boolean isAsynchronousEvaluation() {
+		return this.asynchronousEvaluation;
+	}
+
+	/**
+	 * Turns the asynchronous evaluation pipeline on or off. When on, document changes are captured
+	 * as snapshots and evaluated on a background worker. Results computed against a document that
+	 * has since changed are dropped.
+	 * @param asynchronousEvaluation true to evaluate document changes on a background worker
+	 */
+	public void setAsynchronousEvaluation(boolean asynchronousEvaluation) {
+		this.asynchronousEvaluation = asynchronousEvaluation;
+	}
+
+	/**
+	 * @return ExecutionMode How document changes are spread over background threads when
+	 * 			asynchronous evaluation is turned on
+	 */
+	public ExecutionMode getExecutionMode() {
+		return this.executionMode;
+	}
+
+	/**
+	 * Sets how document changes are spread over background threads when asynchronous evaluation
+	 * is turned on. SINGLE_WORKER evaluates all documents on one thread; PER_DOCUMENT gives each
+	 * document its own serial queue on a shared, bounded pool of threads, so that documents are
+	 * evaluated in parallel; VIRTUAL_THREADS does the same on virtual threads where the runtime
+	 * supports them. Changes already queued finish in the mode they were queued in.
+	 * @param executionMode The execution mode to use
+	 */
+	public void setExecutionMode(ExecutionMode executionMode) {
+		this.executionMode = executionMode == null ? ExecutionMode.SINGLE_WORKER : executionMode;
+	}
+
+	/**
+	 * @return The number of document changes that may wait to be evaluated in the background, per
+	 * 			document
+	 */
+	public int getEventQueueCapacity() {
+		return this.eventQueueCapacity;
+	}
+
+	/**
+	 * Sets how many captured document changes may wait to be evaluated in the background for each
+	 * document when asynchronous evaluation is on. Once a document's queue is full, the backpressure
+	 * policy decides what happens to further changes.
+	 * @param eventQueueCapacity The capacity of each document's queue; at least 1
+	 */
+	public void setEventQueueCapacity(int eventQueueCapacity) {
+		this.eventQueueCapacity = Math.max(1, eventQueueCapacity);
+	}
+
+	/**
+	 * @return BackpressurePolicy What happens to a document change when its document's queue is full
+	 */
+	public BackpressurePolicy getBackpressurePolicy() {
+		return this.backpressurePolicy;
+	}
+
+	/**
+	 * Sets what happens to a document change when asynchronous evaluation is on and its document's
+	 * queue is full: BLOCK makes the UI thread wait for room, DROP_OLDEST discards the oldest waiting
+	 * change, and COLLAPSE replaces a waiting change to the same line before discarding the oldest.
+	 * @param backpressurePolicy The policy to use
+	 */
+	public void setBackpressurePolicy(BackpressurePolicy backpressurePolicy) {
+		this.backpressurePolicy = backpressurePolicy == null ? BackpressurePolicy.DROP_OLDEST : backpressurePolicy;
+	}
+
+	/**
+	 * @return The number of milliseconds without typing after which a burst of keystrokes is
+	 * 			evaluated, or 0 if keystroke coalescing is turned off
+	 */
+	public int getCoalescingQuietWindow() {
+		return this.coalescingQuietWindow;
+	}
+
+	/**
+	 * Sets the quiet window used to coalesce bursts of keystrokes. When greater than 0, adjacent
+	 * single character insertions or deletions on the same line are folded into one change, which
+	 * is evaluated once the user has stopped typing for the given number of milliseconds (or as
+	 * soon as the user edits somewhere else).
+	 * @param coalescingQuietWindow The quiet window in milliseconds; 0 turns coalescing off
+	 */
+	public void setCoalescingQuietWindow(int coalescingQuietWindow) {
+		this.coalescingQuietWindow = Math.max(0, coalescingQuietWindow);
+	}
+
+	/**
+	 * @return The number of milliseconds without annotation changes after which the annotation
+	 * 			model is evaluated, or 0 if every annotation change is evaluated right away
+	 */
+	public int getAnnotationSettleDelay() {
+		return this.annotationSettleDelay;
+	}
+
+	/**
+	 * Sets the settle delay used to merge annotation model changes. A single reconcile or build
+	 * changes the annotation model many times in a row; when greater than 0, these changes are
+	 * evaluated once, after no further changes have arrived for the given number of milliseconds.
+	 * @param annotationSettleDelay The settle delay in milliseconds; 0 evaluates every change as
+	 * 			soon as the UI thread gets to it
+	 */
+	public void setAnnotationSettleDelay(int annotationSettleDelay) {
+		this.annotationSettleDelay = Math.max(0, annotationSettleDelay);
+	}
+
+	/**
+	 * @return The number of milliseconds a feature evaluator may take to evaluate a single event,
+	 * 			or 0 if evaluation time is not watched
+	 */
+	public int getEvaluatorLatencyBudget() {
+		return this.evaluatorLatencyBudget;
+	}
+
+	/**
+	 * Sets the latency budget of feature evaluators. Every call to a feature evaluator is timed,
+	 * and a feature evaluator that takes longer than the budget for a document as many times as
+	 * the quarantine strike limit is no longer called for that document. Registered
+	 * QuarantineObservers are told when this happens. The quarantine is lifted the next time the
+	 * document's feature evaluators are re-baselined, e.g. when its window is shown again, and
+	 * when the document is reopened. The watchdog is off by default; 50 milliseconds is a
+	 * reasonable budget.
+	 * @param evaluatorLatencyBudget The budget in milliseconds; 0 turns the watchdog off
+	 */
+	public void setEvaluatorLatencyBudget(int evaluatorLatencyBudget) {
+		this.evaluatorLatencyBudget = Math.max(0, evaluatorLatencyBudget);
+	}
+
+	/**
+	 * @return The number of events over budget after which a feature evaluator is quarantined
+	 * 			for a document
+	 */
+	public int getQuarantineStrikeLimit() {
+		return this.quarantineStrikeLimit;
+	}
+
+	/**
+	 * Sets how many times a feature evaluator may exceed the latency budget for a document before
+	 * it is quarantined for that document
+	 * @param quarantineStrikeLimit The number of events over budget; at least 1
+	 */
+	public void setQuarantineStrikeLimit(int quarantineStrikeLimit) {
+		this.quarantineStrikeLimit = Math.max(1, quarantineStrikeLimit);
+	}
+
+	/**
+	 * @return The number of milliseconds without document changes after which deferred feature
+	 * 			evaluators are run, or 0 if they are run right after the inline ones
+	 */
+	public int getDeferredEvaluationDelay() {
+		return this.deferredEvaluationDelay;
+	}
+
+	/**
+	 * Sets the idle delay of deferred feature evaluators. Expensive feature evaluators (e.g. ones
+	 * that parse the document) are not run on each change as it is applied; when greater than 0,
+	 * they are run on the latest change in a background job, once the document has not changed
+	 * for the given number of milliseconds. A newer change cancels the job. Only applies when
+	 * document changes are not already evaluated on the asynchronous background worker.
+	 * @param deferredEvaluationDelay The idle delay in milliseconds; 0 runs them right away
+	 */
+	public void setDeferredEvaluationDelay(int deferredEvaluationDelay) {
+		this.deferredEvaluationDelay = Math.max(0, deferredEvaluationDelay);
+	}
+
+	/**
+	 * @return The number of notifications about a feature after which the feature is retired, or
+	 * 			0 if features are not retired on notifications
+	 */
+	public int getRetirementNotificationLimit() {
+		return this.retirementNotificationLimit;
+	}
+
+	/**
+	 * Sets how many times the user may be notified about a feature before it is retired. A
+	 * retired feature is no longer evaluated in any document, and stays retired across restarts
+	 * until it is enabled again.
+	 * @param retirementNotificationLimit The number of notifications; 0 never retires a feature
+	 * 			on notifications
+	 */
+	public void setRetirementNotificationLimit(int retirementNotificationLimit) {
+		this.retirementNotificationLimit = Math.max(0, retirementNotificationLimit);
+	}
+
+	/**
+	 * @return The number of uses of a feature after which the feature is retired, or 0 if
+	 * 			features are not retired on use
+	 */
+	public int getRetirementAdoptionLimit() {
+		return this.retirementAdoptionLimit;
+	}
+
+	/**
+	 * Sets how many times the user may run the Eclipse command implementing a feature before the
+	 * feature is retired, since the user evidently already knows it
+	 * @param retirementAdoptionLimit The number of uses; 0 never retires a feature on use
+	 */
+	public void setRetirementAdoptionLimit(int retirementAdoptionLimit) {
+		this.retirementAdoptionLimit = Math.max(0, retirementAdoptionLimit);
+	}
+}
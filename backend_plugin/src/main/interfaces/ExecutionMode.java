@@ -0,0 +1,28 @@
+package main.interfaces;
+
+/**
+ * The ways document changes can be evaluated off the UI thread when asynchronous evaluation is
+ * turned on in the EvaluationSettings.
+ */
+public enum ExecutionMode {
+
+	/**
+	 * All documents share a single background worker thread, so changes are evaluated one at a
+	 * time in the order they were made, whichever document they were made in
+	 */
+	SINGLE_WORKER,
+
+	/**
+	 * Each document has its own serial queue, and the queues share a bounded pool of threads. The
+	 * changes of one document are still evaluated one at a time in order, while different documents
+	 * are evaluated in parallel.
+	 */
+	PER_DOCUMENT,
+
+	/**
+	 * Each document has its own serial queue, like PER_DOCUMENT, but its tasks run on virtual
+	 * threads rather than on a pool of platform threads, so no pool has to be sized. Needs a Java 21
+	 * or later runtime; on older runtimes this behaves like PER_DOCUMENT.
+	 */
+	VIRTUAL_THREADS
+}
@@ -1,7 +1,7 @@
 package main.interfaces;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import main.evaluators.EvaluatorManager;
 
@@ -9,22 +9,33 @@ import main.evaluators.EvaluatorManager;
  * Observers can register themselves with FeatureSuggestions. FeatureSuggestion will
  * notify all registered Observers with features it detects the user may want to be
  * aware of.
+ *
+ * Observers may be registered, removed and notified from any thread without locking. The observer
+ * lists are copied on write: registering an observer happens-before every notification that
+ * starts after it, and a notification already in progress when an observer is removed may still
+ * reach it.
  */
 public class FeatureSuggestion implements FeatureSuggestionInterface {
 
     	/** Manages all Listeners and Evaluators */
 	private EvaluatorManager manager;
-	/** List of all observers to be notified */
+	/** List of all observers to be notified, copied on write */
 	private List<FeatureSuggestionObserver> observers;
+	/** List of all observers to be notified when a feature's evaluation is quarantined, copied on write */
+	private List<QuarantineObserver> quarantineObservers;
 	/** Flag set when the user input monitoring service is currently running */
-	private boolean isRunning;
+	private volatile boolean isRunning;
+	/** Options controlling how user input is evaluated */
+	private EvaluationSettings settings;
 
 	/**
 	 * Constructs a new FeatureSuggestion
 	 */
 	public FeatureSuggestion() {
+		settings = new EvaluationSettings();
 		manager = new EvaluatorManager(this);
-		observers = new ArrayList<FeatureSuggestionObserver>();
+		observers = new CopyOnWriteArrayList<FeatureSuggestionObserver>();
+		quarantineObservers = new CopyOnWriteArrayList<QuarantineObserver>();
 		isRunning = false;
 	}
 
@@ -49,6 +60,26 @@ public class FeatureSuggestion implements FeatureSuggestionInterface {
 		return observers.remove(obs);
 	}
 
+	/**
+	 * Register an Observer to be notified when the evaluation of a feature is disabled for a
+	 * document because it repeatedly took longer than the latency budget
+	 * @param obs Observer to be registered
+	 * @return true upon successful registration; false otherwise
+	 */
+	public boolean registerQuarantineObserver(QuarantineObserver obs) {
+		return quarantineObservers.add(obs);
+	}
+
+	/**
+	 * Removes an observer from the FeatureSuggestion quarantine observer list. The observer
+	 * will no longer be told about quarantined features
+	 * @param obs Observer to be removed
+	 * @return true upon successful removal; false otherwise
+	 */
+	public boolean removeQuarantineObserver(QuarantineObserver obs) {
+		return quarantineObservers.remove(obs);
+	}
+
 	/**
 	 * Provides a list of all featureIDs used by FeatureSuggestion.
 	 * Recommended to use this list to verify observer featureID list matches
@@ -59,6 +90,15 @@ public class FeatureSuggestion implements FeatureSuggestionInterface {
 		return FeatureID.getAllFeatureIDs();
 	}
 
+	/**
+	 * Returns the options controlling how user input is evaluated. Changes made to the returned
+	 * object take effect on the next event the backend receives.
+	 * @return The EvaluationSettings used by this FeatureSuggestion
+	 */
+	public EvaluationSettings getSettings() {
+		return settings;
+	}
+
 	/**
 	 * Turns the FeatureSuggestion on. All observers will be updated upon updates.
 	 */
@@ -86,6 +126,36 @@ public class FeatureSuggestion implements FeatureSuggestionInterface {
 		return isRunning;
 	}
 
+	/**
+	 * Turns on the evaluation of a feature that was turned off or retired. May be called from any
+	 * thread.
+	 * @param featureID The ID of the feature to enable
+	 * @return true if the feature was disabled or retired and is now enabled; false otherwise
+	 */
+	@Override
+	public boolean enableFeature(String featureID) {
+		return this.manager.enableFeature(featureID);
+	}
+
+	/**
+	 * Turns off the evaluation of a feature. The feature's evaluator is removed from every open
+	 * document, so a disabled feature costs nothing per event. May be called from any thread.
+	 * @param featureID The ID of the feature to disable
+	 * @return true if the feature was enabled and is now disabled; false otherwise
+	 */
+	@Override
+	public boolean disableFeature(String featureID) {
+		return this.manager.disableFeature(featureID);
+	}
+
+	/**
+	 * Returns true if the evaluation of the given feature is currently turned on
+	 */
+	@Override
+	public boolean isFeatureEnabled(String featureID) {
+		return this.manager.isFeatureEnabled(featureID);
+	}
+
 	/**
 	 * Notifies all observers that a feature should be suggested to the user
 	 *
@@ -96,4 +166,17 @@ public class FeatureSuggestion implements FeatureSuggestionInterface {
 			o.notify(featureID);
 		}
 	}
+
+	/**
+	 * Notifies all quarantine observers that the evaluation of a feature was disabled for a document
+	 *
+	 * @param featureID string that represents a featureID
+	 * @param documentPath The workspace path of the document, or null if it is not a workspace file
+	 * @param elapsedMillis How long, in milliseconds, the last slow evaluation took
+	 */
+	public void notifyQuarantineObservers(String featureID, String documentPath, long elapsedMillis) {
+		for (QuarantineObserver o : quarantineObservers) {
+			o.quarantined(featureID, documentPath, elapsedMillis);
+		}
+	}
 }
@@ -44,6 +44,40 @@ public interface FeatureSuggestionInterface {
 	 */
 	public boolean isRunning();
 	
+	/**
+	 * Turns on the evaluation of a single feature that was turned off by disableFeature(String),
+	 * or retired because the user already learned it. All features are enabled initially.
+	 * @param featureID The ID of the feature to enable
+	 * @return true if the feature was disabled or retired and is now enabled, false otherwise. The
+	 * 			default implementation cannot turn features off, so always returns false
+	 */
+	public default boolean enableFeature(String featureID) {
+		return false;
+	}
+	
+	/**
+	 * Turns off the evaluation of a single feature. Observers are no longer notified about the
+	 * feature, and no work is done to detect it, until it is enabled again.
+	 * @param featureID The ID of the feature to disable
+	 * @return true if the feature was enabled and is now disabled, false otherwise. The default
+	 * 			implementation cannot turn features off, so always returns false
+	 */
+	public default boolean disableFeature(String featureID) {
+		return false;
+	}
+	
+	/**
+	 * Checks to see if the evaluation of a feature is currently on or off. This can be controlled
+	 * by enableFeature(String) and disableFeature(String)
+	 *
+	 * @param featureID The ID of a feature
+	 * @return true if the feature is known and currently enabled. The default implementation
+	 * 			cannot turn features off, so returns true for every known feature
+	 */
+	public default boolean isFeatureEnabled(String featureID) {
+		return getAllFeatureIDs().contains(featureID);
+	}
+	
 	/**
 	 * Provides a list of all featureIDs used by FeatureSuggestion.
 	 * Recommended to use this list to verify observer featureID list matches
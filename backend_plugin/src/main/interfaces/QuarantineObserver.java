@@ -0,0 +1,25 @@
+package main.interfaces;
+
+/** An Observer abstract class designed to work with the FeatureSuggestion API. The
+ * observer must be registered with the FeatureSuggestion back end to be told when the
+ * evaluation of a feature is disabled for a document because it was too slow.
+ */
+public abstract class QuarantineObserver {
+
+	/**
+	 * The observer is notified by FeatureSuggestion when a feature's evaluation repeatedly
+	 * took longer than the latency budget in the EvaluationSettings for a document. The
+	 * latency budget is off (0) unless it is set, in which case observers are never notified.
+	 *
+	 * The feature is not evaluated for that document until the quarantine is lifted. It is
+	 * lifted when the document's evaluation state is re-baselined after a stretch of changes
+	 * that were not evaluated (e.g. after a rewrite session such as a format, after linked mode
+	 * is exited, when a hidden editor window is shown again, or when a change was discarded
+	 * under asynchronous evaluation), or when the document is opened again.
+	 *
+	 * @param featureID The feature whose evaluation was disabled
+	 * @param documentPath The workspace path of the document, or null if it is not a workspace file
+	 * @param elapsedMillis How long, in milliseconds, the last slow evaluation took
+	 */
+	public abstract void quarantined(String featureID, String documentPath, long elapsedMillis);
+}
@@ -1,8 +1,16 @@
 package main.listeners;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jface.text.source.AnnotationModelEvent;
 import org.eclipse.jface.text.source.IAnnotationModel;
 import org.eclipse.jface.text.source.IAnnotationModelListener;
+import org.eclipse.jface.text.source.IAnnotationModelListenerExtension;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.ui.PlatformUI;
 
+import main.evaluators.AnnotationModelDelta;
 import main.evaluators.Evaluator;
 
 /**
@@ -10,27 +18,170 @@ import main.evaluators.Evaluator;
  * When annotations are added, removed, or otherwise changed from the document being edited, any
  * evaluation functions dependent on annotations will be ran to see if any Eclipse features should
  * be suggested to the user.
+ *
+ * A single reconcile or build changes the annotation model many times in a row. Unless the settle
+ * delay is turned off, these notifications are merged, and evaluation runs once on the UI thread
+ * after no further notifications have arrived for the length of the settle delay. Evaluation
+ * always runs on the UI thread, even with the settle delay turned off: notifications from a
+ * background (reconciler) thread are then handed to the UI thread right away, and those that
+ * arrive before it gets to them are still merged.
+ *
+ * Annotation models that describe their changes through AnnotationModelEvents have the added,
+ * removed, and changed annotations collected into an AnnotationModelDelta, so evaluation only
+ * has to look at the annotations that changed.
  */
-public class AnnotationModelListener implements IAnnotationModelListener {
+public class AnnotationModelListener implements IAnnotationModelListener, IAnnotationModelListenerExtension {
 
 	/** Evaluator that the AnnotationModelListener reports to when an update occurs */
 	private Evaluator evaluator;
 
+	/** Annotation model that most recently reported a change */
+	private volatile IAnnotationModel pendingModel;
+	/** Annotation changes received since the last evaluation. Guarded by this listener's lock */
+	private AnnotationModelDelta pendingDelta;
+	/** Number of notifications received since the last evaluation */
+	private final AtomicInteger pendingNotifications;
+	/** Total number of notifications that were merged into another notification's evaluation */
+	private final AtomicLong absorbedNotifications;
+	/** Evaluates the merged notifications once the settle delay has passed */
+	private final Runnable settleTask = () -> flushPendingNotifications();
+
 	/**
 	 * Constructor
 	 * @param evaluator The Evaluator that this reports annotation changes to
 	 */
 	public AnnotationModelListener(Evaluator evaluator) {
 		this.evaluator = evaluator;
+		this.pendingDelta = new AnnotationModelDelta();
+		this.pendingNotifications = new AtomicInteger();
+		this.absorbedNotifications = new AtomicLong();
 	}
 
 	/**
 	 * This method is called when the AnnotationModel is changed. When called, this method passes
 	 * the changed information to the Evaluator to be passed to the correct evaluation functions.
+	 * May be called from a background (reconciler) thread.
 	 * @param model The annotation model attached to the document window
 	 */
 	@Override
 	public void modelChanged(IAnnotationModel model) {
-		evaluator.evaluateAnnotationModelChanges(model);
+
+		// Nothing is known about what changed, so the whole model has to be rescanned
+		annotationModelChanged(model, null);
+	}
+
+	/**
+	 * This method is called instead of modelChanged(IAnnotationModel) by annotation models that
+	 * describe which annotations changed. May be called from a background (reconciler) thread.
+	 * @param event The annotation model change data
+	 */
+	@Override
+	public void modelChanged(AnnotationModelEvent event) {
+		annotationModelChanged(event.getAnnotationModel(), event);
+	}
+
+	/**
+	 * Records the given change, and either evaluates it as soon as possible on the UI thread or
+	 * (re)starts the settle timer
+	 * @param model The annotation model attached to the document window
+	 * @param event The annotation model change data, or null if unknown
+	 */
+	private void annotationModelChanged(IAnnotationModel model, AnnotationModelEvent event) {
+
+		// While evaluation is paused (e.g. the editor window is hidden), changes are not collected
+		// at all; the whole model is rescanned once evaluation resumes
+		if (evaluator.isEvaluationSuspended()) {
+			evaluator.evaluationSkipped();
+			return;
+		}
+
+		synchronized (this) {
+			if (event == null) {
+				this.pendingDelta.markWorldChange();
+			} else {
+				this.pendingDelta.add(event);
+			}
+		}
+
+		this.pendingModel = model;
+		this.pendingNotifications.incrementAndGet();
+
+		// Without a workbench there is no UI thread to hand the change to (e.g. in unit tests)
+		if (!PlatformUI.isWorkbenchRunning()) {
+			flushPendingNotifications();
+			return;
+		}
+		Display display = PlatformUI.getWorkbench().getDisplay();
+		if (display.isDisposed()) {
+			return;
+		}
+
+		int settleDelay = evaluator.getSettings().getAnnotationSettleDelay();
+		if (settleDelay <= 0) {
+			if (Display.getCurrent() == display) {
+				flushPendingNotifications();
+			} else {
+				display.asyncExec(this.settleTask);
+			}
+			return;
+		}
+
+		// (Re)start the settle timer, which has to be done on the UI thread
+		if (Display.getCurrent() == display) {
+			display.timerExec(settleDelay, this.settleTask);
+		} else {
+			display.asyncExec(() -> display.timerExec(settleDelay, this.settleTask));
+		}
+	}
+
+	/**
+	 * Evaluates the annotation model right away if any notifications are waiting to be evaluated.
+	 * Must be called on the UI thread, unless the workbench is not running.
+	 */
+	public void flushPendingNotifications() {
+		int notifications = this.pendingNotifications.getAndSet(0);
+		if (notifications == 0) {
+			return;
+		}
+
+		Display display = Display.getCurrent();
+		if (display != null) {
+			display.timerExec(-1, this.settleTask);
+		}
+
+		this.absorbedNotifications.addAndGet(notifications - 1);
+		evaluator.evaluateAnnotationModelChanges(this.pendingModel, takePendingDelta());
+	}
+
+	/**
+	 * Hands over the annotation changes collected so far, starting a new empty delta
+	 * @return The annotation changes received since the last evaluation
+	 */
+	private synchronized AnnotationModelDelta takePendingDelta() {
+		AnnotationModelDelta delta = this.pendingDelta;
+		this.pendingDelta = new AnnotationModelDelta();
+		return delta;
+	}
+
+	/**
+	 * Discards any waiting notifications and cancels the settle timer. Called when the listener
+	 * is removed from its annotation model. Must be called on the UI thread.
+	 */
+	public void dispose() {
+		this.pendingNotifications.set(0);
+		this.pendingModel = null;
+		takePendingDelta();
+		Display display = Display.getCurrent();
+		if (display != null) {
+			display.timerExec(-1, this.settleTask);
+		}
+	}
+
+	/**
+	 * @return The total number of annotation model notifications that were merged into a single
+	 * 			evaluation instead of being evaluated on their own
+	 */
+	public long getAbsorbedNotificationCount() {
+		return this.absorbedNotifications.get();
 	}
 }
@@ -1,7 +1,10 @@
 package main.listeners;
 
+import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.swt.widgets.Display;
 
 import main.evaluators.Evaluator;
 
@@ -11,12 +14,37 @@ import main.evaluators.Evaluator;
  * is inserted into or removed from the document being edited. When changes
  * are detected, evaluation will be run on the changes to see if any Eclipse
  * features were "triggered"
+ *
+ * When keystroke coalescing is turned on, bursts of adjacent single character
+ * insertions or deletions on the same line are folded into one change, which is
+ * evaluated once the user stops typing.
  */
 public class DocumentChangesListener implements IDocumentListener {
 
 	/** Evaluator that the AnnotationModelListener reports to when an update occurs */
 	private Evaluator evaluator;
 
+	/** Flag set while a coalesced change is waiting to be evaluated */
+	private boolean hasPendingChange;
+	/** Document the pending change was made in */
+	private IDocument pendingDocument;
+	/** Offset of the pending change */
+	private int pendingOffset;
+	/** Number of characters removed by the pending change */
+	private int pendingLength;
+	/** Text inserted by the pending change */
+	private StringBuilder pendingText;
+	/** Time, in milliseconds, at which the last keystroke folded into the pending change was made */
+	private long pendingTimeStamp;
+	/** Flag set in documentAboutToBeChanged when the incoming change extends the pending change */
+	private boolean extendPendingChange;
+	/** Flag set in documentAboutToBeChanged when the incoming change should start a new pending change */
+	private boolean startPendingChange;
+	/** Number of keystrokes that were folded into an earlier change instead of being evaluated */
+	private long coalescedChangeCount;
+	/** Evaluates the pending change once the quiet window has passed */
+	private final Runnable flushTask = () -> flushPendingChange();
+
 	/**
 	 * Constructor
 	 * @param evaluator The Evaluator that this reports document changes to
@@ -24,6 +52,7 @@ public class DocumentChangesListener implements IDocumentListener {
 	public DocumentChangesListener(Evaluator evaluator) {
 		super();
 		this.evaluator = evaluator;
+		this.pendingText = new StringBuilder();
 	}
 
 	/**
@@ -33,6 +62,33 @@ public class DocumentChangesListener implements IDocumentListener {
 	 */
 	@Override
 	public void documentAboutToBeChanged(DocumentEvent event) {
+		this.extendPendingChange = false;
+		this.startPendingChange = false;
+
+		// Changes made while evaluation is paused are never coalesced, so that none of them
+		// are evaluated after evaluation resumes
+		if (evaluator.isEvaluationSuspended()) {
+			flushPendingChange();
+			evaluator.evaluateDocumentBeforeChange(event);
+			return;
+		}
+
+		if (coalescingEnabled()) {
+
+			// Keystrokes that continue the pending change are not evaluated on their own
+			if (this.hasPendingChange && extendsPendingChange(event)) {
+				this.extendPendingChange = true;
+				return;
+			}
+
+			// Anything else ends the pending change, which has to be evaluated before the
+			// document moves on
+			flushPendingChange();
+			this.startPendingChange = isSingleCharacterEdit(event);
+		} else {
+			flushPendingChange();
+		}
+
 		evaluator.evaluateDocumentBeforeChange(event);
 	}
 
@@ -43,8 +99,156 @@ public class DocumentChangesListener implements IDocumentListener {
 	 */
 	@Override
 	public void documentChanged(DocumentEvent event) {
+		long timeStamp = System.currentTimeMillis();
+
+		if (this.extendPendingChange) {
+			extendPendingChange(event, timeStamp);
+			scheduleFlush();
+			return;
+		}
+
+		if (this.startPendingChange) {
+			this.hasPendingChange = true;
+			this.pendingDocument = event.getDocument();
+			this.pendingOffset = event.getOffset();
+			this.pendingLength = event.getLength();
+			this.pendingText.setLength(0);
+			this.pendingText.append(event.getText());
+			this.pendingTimeStamp = timeStamp;
+			scheduleFlush();
+			return;
+		}
 
 		// Send the document change event information to the Evaluator
-		evaluator.evaluateDocumentChanges(event);
+		evaluator.evaluateDocumentChanges(event, timeStamp);
+	}
+
+	/**
+	 * Discards any pending change and cancels its scheduled evaluation. Called when the
+	 * listener is removed from its document.
+	 */
+	public void dispose() {
+		this.hasPendingChange = false;
+		this.pendingDocument = null;
+		Display display = Display.getCurrent();
+		if (display != null) {
+			display.timerExec(-1, this.flushTask);
+		}
+	}
+
+	/**
+	 * @return The number of keystrokes that were folded into an earlier change instead of
+	 * 			being evaluated on their own
+	 */
+	public long getCoalescedChangeCount() {
+		return this.coalescedChangeCount;
+	}
+
+	/**
+	 * Checks whether keystroke coalescing can be used for the current event. Coalescing relies on
+	 * the UI thread's timers, so changes made from other threads are always evaluated immediately.
+	 * @return true if keystroke coalescing is turned on and usable; false otherwise
+	 */
+	private boolean coalescingEnabled() {
+		return evaluator.getSettings().getCoalescingQuietWindow() > 0 && Display.getCurrent() != null;
+	}
+
+	/**
+	 * Checks whether the given event inserts or removes a single character that is not a line
+	 * delimiter. Must be called before the change is applied.
+	 * @param event The document change data
+	 * @return true if the event is a single character edit within one line; false otherwise
+	 */
+	private boolean isSingleCharacterEdit(DocumentEvent event) {
+		String text = event.getText() == null ? "" : event.getText();
+
+		// A single character typed by the user
+		if (event.getLength() == 0 && text.length() == 1) {
+			return !isLineDelimiter(text.charAt(0));
+		}
+
+		// A single character removed by backspace or delete
+		if (event.getLength() == 1 && text.length() == 0) {
+			try {
+				return !isLineDelimiter(event.getDocument().getChar(event.getOffset()));
+			} catch (BadLocationException e) {
+				return false;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks whether the given event continues the pending change. Insertions continue a pending
+	 * insertion when typed directly after it. Deletions continue a pending deletion when they remove
+	 * the character directly before (backspace) or directly after (delete) it. Since none of the
+	 * folded characters are line delimiters, the whole pending change stays on one line.
+	 * @param event The document change data
+	 * @return true if the event can be folded into the pending change; false otherwise
+	 */
+	private boolean extendsPendingChange(DocumentEvent event) {
+		if (event.getDocument() != this.pendingDocument || !isSingleCharacterEdit(event)) {
+			return false;
+		}
+
+		boolean pendingIsInsertion = this.pendingLength == 0;
+		if (event.getLength() == 0) {
+			return pendingIsInsertion && event.getOffset() == this.pendingOffset + this.pendingText.length();
+		}
+		return !pendingIsInsertion && (event.getOffset() + 1 == this.pendingOffset ||
+				event.getOffset() == this.pendingOffset);
+	}
+
+	/**
+	 * Folds the given event into the pending change
+	 * @param event The document change data
+	 * @param timeStamp The time, in milliseconds, at which the user made the change
+	 */
+	private void extendPendingChange(DocumentEvent event, long timeStamp) {
+		if (event.getLength() == 0) {
+			this.pendingText.append(event.getText());
+		} else {
+			this.pendingOffset = Math.min(this.pendingOffset, event.getOffset());
+			this.pendingLength++;
+		}
+		this.pendingTimeStamp = timeStamp;
+		this.coalescedChangeCount++;
+	}
+
+	/**
+	 * (Re)starts the quiet window timer for the pending change
+	 */
+	private void scheduleFlush() {
+		Display.getCurrent().timerExec(evaluator.getSettings().getCoalescingQuietWindow(), this.flushTask);
+	}
+
+	/**
+	 * Evaluates the pending change, if there is one. The time of the last keystroke folded into
+	 * the change is passed along, so time sensitive evaluations see when the user actually typed
+	 * rather than when the quiet window ended.
+	 */
+	public void flushPendingChange() {
+		if (!this.hasPendingChange) {
+			return;
+		}
+		this.hasPendingChange = false;
+
+		Display display = Display.getCurrent();
+		if (display != null) {
+			display.timerExec(-1, this.flushTask);
+		}
+
+		DocumentEvent coalescedEvent = new DocumentEvent(this.pendingDocument, this.pendingOffset,
+				this.pendingLength, this.pendingText.toString());
+		this.pendingDocument = null;
+		evaluator.evaluateDocumentChanges(coalescedEvent, this.pendingTimeStamp);
+	}
+
+	/**
+	 * @param c The character to check
+	 * @return true if the given character is part of a line delimiter; false otherwise
+	 */
+	private static boolean isLineDelimiter(char c) {
+		return c == '\n' || c == '\r';
 	}
 }
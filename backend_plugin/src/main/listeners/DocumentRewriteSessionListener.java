@@ -0,0 +1,39 @@
+package main.listeners;
+
+import org.eclipse.jface.text.DocumentRewriteSessionEvent;
+import org.eclipse.jface.text.IDocumentRewriteSessionListener;
+
+import main.evaluators.Evaluator;
+
+/**
+ * Listens for rewrite sessions starting and stopping on a document. Bulk edits such as
+ * formatting, organizing imports, or refactorings are made within a rewrite session, and
+ * send a large number of document changes that the user did not type themselves. The
+ * Evaluator uses these notifications to pause evaluation for the length of the session.
+ */
+public class DocumentRewriteSessionListener implements IDocumentRewriteSessionListener {
+
+	/** Evaluator that this listener reports to when a rewrite session starts or stops */
+	private Evaluator evaluator;
+
+	/**
+	 * Constructor
+	 * @param evaluator The Evaluator that this reports rewrite sessions to
+	 */
+	public DocumentRewriteSessionListener(Evaluator evaluator) {
+		this.evaluator = evaluator;
+	}
+
+	/**
+	 * Fires when a rewrite session starts or stops on the document
+	 * @param event The rewrite session data
+	 */
+	@Override
+	public void documentRewriteSessionChanged(DocumentRewriteSessionEvent event) {
+		if (event.getChangeType() == DocumentRewriteSessionEvent.SESSION_START) {
+			evaluator.rewriteSessionStarted();
+		} else if (event.getChangeType() == DocumentRewriteSessionEvent.SESSION_STOP) {
+			evaluator.rewriteSessionStopped();
+		}
+	}
+}
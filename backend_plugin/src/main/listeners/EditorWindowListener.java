@@ -46,15 +46,17 @@ public class EditorWindowListener implements IPartListener2 {
 			// If the document inside the text editor window is a .java file and the
 			// text editor window does not already have an evaluator assigned to it,
 			// Assign an evaluator to the text editor window
-			if (filename.endsWith(".java") && !em.getOpenEvaluators().containsKey(editor)) {
+			if (filename.endsWith(".java") && !em.hasEvaluator(editor)) {
 				em.addEvaluator(editor);
 			}
 		}
 	}
 
 	/**
-	 * Adds an evaluator to a newly opened window in the Eclipse UI. Only adds the evaluator
-	 * if the window is a document editor containing a .java file.
+	 * Prepares an evaluator for a newly opened window in the Eclipse UI. The evaluator is only
+	 * created once the window is activated or its document first changes, so windows opened in
+	 * the background cost nothing until used. Only prepares the evaluator if the window is a
+	 * document editor containing a .java file.
 	 * @param partRef The reference to the Eclipse part that was activated
 	 */
 	@Override
@@ -68,9 +70,9 @@ public class EditorWindowListener implements IPartListener2 {
 			String filename = input.getName();
 
 			// If the document inside the text editor window is a .java file, assign an evaluator
-			// to the text editor window
+			// to the text editor window once it is used
 			if (filename.endsWith(".java")) {
-				em.addEvaluator(editor);
+				em.deferEvaluator(editor);
 			}
 		}
 	}
@@ -83,10 +85,16 @@ public class EditorWindowListener implements IPartListener2 {
 	}
 
 	/**
-	 * Unused
+	 * Removes the evaluator from a window in the Eclipse UI that was closed, so that it stops
+	 * listening to the document and can be garbage collected
+	 * @param partRef The reference to the Eclipse part that was closed
 	 */
 	@Override
 	public void partClosed(IWorkbenchPartReference partRef) {
+		IWorkbenchPart part = partRef.getPart(false);
+		if (part instanceof ITextEditor) {
+			em.removeEvaluator((ITextEditor) part);
+		}
 	}
 
 	/**
@@ -97,23 +105,47 @@ public class EditorWindowListener implements IPartListener2 {
 	}
 
 	/**
-	 * Unused
+	 * Pauses evaluation for a window that the user can no longer see (e.g. another editor tab
+	 * was brought to the front, or the window was minimized)
+	 * @param partRef The reference to the Eclipse part that was hidden
 	 */
 	@Override
 	public void partHidden(IWorkbenchPartReference partRef) {
+		IWorkbenchPart part = partRef.getPart(false);
+		if (part instanceof ITextEditor) {
+			em.setEditorVisible((ITextEditor) part, false);
+		}
 	}
 
 	/**
-	 * Unused
+	 * Resumes evaluation for a window that the user can see again
+	 * @param partRef The reference to the Eclipse part that became visible
 	 */
 	@Override
 	public void partVisible(IWorkbenchPartReference partRef) {
+		IWorkbenchPart part = partRef.getPart(false);
+		if (part instanceof ITextEditor) {
+			em.setEditorVisible((ITextEditor) part, true);
+		}
 	}
 
 	/**
-	 * Unused
+	 * Moves the evaluator of a window whose input was replaced (e.g. when a file is reopened in
+	 * the same editor) over to the window's new document. Only reattaches the evaluator if the
+	 * new document is a .java file.
+	 * @param partRef The reference to the Eclipse part whose input changed
 	 */
 	@Override
 	public void partInputChanged(IWorkbenchPartReference partRef) {
+		IWorkbenchPart part = partRef.getPart(false);
+		if (part instanceof ITextEditor && em.hasEvaluator((ITextEditor) part)) {
+			ITextEditor editor = (ITextEditor) part;
+			em.removeEvaluator(editor);
+
+			IEditorInput input = editor.getEditorInput();
+			if (input != null && input.getName().endsWith(".java")) {
+				em.addEvaluator(editor);
+			}
+		}
 	}
 }
@@ -0,0 +1,63 @@
+package main.listeners;
+
+import org.eclipse.core.commands.ExecutionEvent;
+import org.eclipse.core.commands.ExecutionException;
+import org.eclipse.core.commands.IExecutionListener;
+import org.eclipse.core.commands.NotHandledException;
+
+import main.evaluators.EvaluatorManager;
+import main.evaluators.FeatureRetirementPolicy;
+
+/**
+ * Listens for the Eclipse commands that implement the suggested features being run. Each
+ * successful run shows that the user knows the feature, and is reported to the EvaluatorManager
+ * so that features the user has adopted can be retired. Should be added as an execution listener
+ * to each of the commands in FeatureRetirementPolicy.getAdoptionCommands().
+ */
+public class FeatureAdoptionListener implements IExecutionListener {
+
+	/** EvaluatorManager that this listener reports feature use to */
+	private EvaluatorManager em;
+
+	/**
+	 * Constructs a FeatureAdoptionListener
+	 * @param em The EvaluatorManager that this reports feature use to
+	 */
+	public FeatureAdoptionListener(EvaluatorManager em) {
+		this.em = em;
+	}
+
+	/**
+	 * Reports the feature implemented by the command that was run
+	 * @param commandId The ID of the command that was run
+	 * @param returnValue The value returned by the command
+	 */
+	@Override
+	public void postExecuteSuccess(String commandId, Object returnValue) {
+		String featureID = FeatureRetirementPolicy.getAdoptionCommands().get(commandId);
+		if (featureID != null) {
+			em.featureAdopted(featureID);
+		}
+	}
+
+	/**
+	 * Unused
+	 */
+	@Override
+	public void notHandled(String commandId, NotHandledException exception) {
+	}
+
+	/**
+	 * Unused
+	 */
+	@Override
+	public void postExecuteFailure(String commandId, ExecutionException exception) {
+	}
+
+	/**
+	 * Unused
+	 */
+	@Override
+	public void preExecute(String commandId, ExecutionEvent event) {
+	}
+}
@@ -0,0 +1,67 @@
+package main.listeners;
+
+import java.lang.ref.WeakReference;
+
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.ui.texteditor.ITextEditor;
+
+import main.evaluators.EvaluatorManager;
+
+/**
+ * One-shot listener placed on the document of an editor window that does not have an Evaluator
+ * yet. The first time the document is about to change, the EvaluatorManager is asked to attach an
+ * Evaluator to the editor window, and this listener removes itself. Used so that editor windows
+ * restored at startup, or opened in the background, cost nothing until they are actually used.
+ */
+public class LazyAttachListener implements IDocumentListener {
+
+	/** EvaluatorManager that this listener asks to attach an Evaluator */
+	private EvaluatorManager em;
+	/** Editor window waiting for an Evaluator. Weakly held, so that it is not kept alive by the document */
+	private WeakReference<ITextEditor> editor;
+	/** Document this listener is placed on */
+	private IDocument document;
+
+	/**
+	 * Constructs a LazyAttachListener and places it on the editor window's document
+	 * @param em The EvaluatorManager to ask to attach an Evaluator
+	 * @param editor The editor window waiting for an Evaluator
+	 * @param document The document shown in the editor window
+	 */
+	public LazyAttachListener(EvaluatorManager em, ITextEditor editor, IDocument document) {
+		this.em = em;
+		this.editor = new WeakReference<ITextEditor>(editor);
+		this.document = document;
+		document.addDocumentListener(this);
+	}
+
+	/**
+	 * Removes this listener from the document, without attaching an Evaluator
+	 */
+	public void dispose() {
+		this.document.removeDocumentListener(this);
+	}
+
+	/**
+	 * Attaches an Evaluator to the editor window before the document's first change is applied,
+	 * so that the change is evaluated like any other
+	 * @param event The document change data
+	 */
+	@Override
+	public void documentAboutToBeChanged(DocumentEvent event) {
+		dispose();
+		ITextEditor textEditor = this.editor.get();
+		if (textEditor != null) {
+			em.attachOnFirstChange(textEditor, event);
+		}
+	}
+
+	/**
+	 * Unused
+	 */
+	@Override
+	public void documentChanged(DocumentEvent event) {
+	}
+}
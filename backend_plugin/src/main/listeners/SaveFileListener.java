@@ -1,20 +1,32 @@
 package main.listeners;
 
-import org.eclipse.core.commands.ExecutionEvent;
-import org.eclipse.core.commands.ExecutionException;
-import org.eclipse.core.commands.IExecutionListener;
-import org.eclipse.core.commands.NotHandledException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.runtime.CoreException;
 
 import main.evaluators.EvaluatorManager;
 
 /**
- * Listens for a file being saved within the workspace. Should only be added to
- * the FILE_SAVE command.
+ * Listens for files being saved within the workspace. Should be added to the workspace
+ * as a POST_CHANGE resource change listener. Any change to the contents of a .java file
+ * is treated as a save, so Save, Save All, auto-save, and saves made by refactorings are
+ * all detected.
+ *
+ * Files saved in quick succession (e.g. by Save All, which saves one editor at a time) are
+ * collected, and reported to the EvaluatorManager as a single batch on the UI thread.
  */
-public class SaveFileListener implements IExecutionListener {
+public class SaveFileListener implements IResourceChangeListener {
 
     	/** EvaluatorManager that this listener reports to when the workspace is saved */
 	private EvaluatorManager em;
+	/** Files saved since the last batch was reported. Guarded by this listener's lock */
+	private Set<IFile> savedFiles;
 
 	/**
 	 * Constructs a SaveFileListener
@@ -22,37 +34,64 @@ public class SaveFileListener implements IExecutionListener {
 	 */
 	public SaveFileListener(EvaluatorManager em) {
 		this.em = em;
+		this.savedFiles = new LinkedHashSet<IFile>();
 	}
 
 	/**
-	 * Notifies the EvaluatorManager that a workspace resource (file) was successfully
-	 * saved
-	 * @param commandId The String ID of the command that was executed (FILE_SAVE in this case)
-	 * @param returnValue null in this case
+	 * Collects the .java files whose contents changed, and schedules them to be reported to
+	 * the EvaluatorManager. May be called from any thread.
+	 * @param event The resource change data
 	 */
 	@Override
-	public void postExecuteSuccess(String commandId, Object returnValue) {
-		em.workspaceResourceSaved();
-	}
+	public void resourceChanged(IResourceChangeEvent event) {
+		IResourceDelta delta = event.getDelta();
+		if (delta == null) {
+			return;
+		}
 
-	/**
-	 * Unused
-	 */
-	@Override
-	public void notHandled(String commandId, NotHandledException exception) {
-	}
+		final Set<IFile> changedFiles = new LinkedHashSet<IFile>();
+		try {
+			delta.accept(child -> {
+				IResource resource = child.getResource();
+				if (resource.getType() != IResource.FILE) {
+					return true;
+				}
 
-	/**
-	 * Unused
-	 */
-	@Override
-	public void postExecuteFailure(String commandId, ExecutionException exception) {
+				// Only content changes count as saves; marker changes from builds do not
+				if (child.getKind() == IResourceDelta.CHANGED &&
+						(child.getFlags() & IResourceDelta.CONTENT) != 0 &&
+						"java".equals(resource.getFileExtension())) {
+					changedFiles.add((IFile) resource);
+				}
+				return false;
+			});
+		} catch (CoreException e) {
+			return;
+		}
+		if (changedFiles.isEmpty()) {
+			return;
+		}
+
+		// Only the first change since the last batch schedules a report; later ones join it
+		boolean reportScheduled;
+		synchronized (this) {
+			reportScheduled = !this.savedFiles.isEmpty();
+			this.savedFiles.addAll(changedFiles);
+		}
+		if (!reportScheduled) {
+			em.runOnDisplay(() -> reportSavedFiles());
+		}
 	}
 
 	/**
-	 * Unused
+	 * Reports all files saved since the last batch to the EvaluatorManager
 	 */
-	@Override
-	public void preExecute(String commandId, ExecutionEvent event) {
+	private void reportSavedFiles() {
+		Set<IFile> files;
+		synchronized (this) {
+			files = this.savedFiles;
+			this.savedFiles = new LinkedHashSet<IFile>();
+		}
+		em.filesSaved(files);
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,90 @@
+package main.listeners;
+
+import org.eclipse.ui.IPageListener;
+import org.eclipse.ui.IWindowListener;
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.IWorkbenchWindow;
+
+import main.evaluators.EvaluatorManager;
+
+/**
+ * Listens for workbench windows, and the pages within them, being opened and closed after the
+ * EvaluatorManager has started. New pages are handed to the EvaluatorManager so that their editor
+ * windows are tracked like those of the pages that existed at startup.
+ */
+public class WorkbenchWindowListener implements IWindowListener, IPageListener {
+
+	/** EvaluatorManager that this listener reports new and closed pages to */
+	private EvaluatorManager em;
+
+	/**
+	 * Creates a new WorkbenchWindowListener
+	 * @param em the EvaluatorManager managing workspace-wide listeners
+	 */
+	public WorkbenchWindowListener(EvaluatorManager em) {
+		this.em = em;
+	}
+
+	/**
+	 * Starts listening for pages in a newly opened window, and reports the pages it already has
+	 * @param window The workbench window that was opened
+	 */
+	@Override
+	public void windowOpened(IWorkbenchWindow window) {
+		window.addPageListener(this);
+		for (IWorkbenchPage page : window.getPages()) {
+			em.addPage(page);
+		}
+	}
+
+	/**
+	 * Stops listening to a closed window, and reports any of its pages that are still known
+	 * @param window The workbench window that was closed
+	 */
+	@Override
+	public void windowClosed(IWorkbenchWindow window) {
+		window.removePageListener(this);
+		for (IWorkbenchPage page : window.getPages()) {
+			em.removePage(page);
+		}
+	}
+
+	/**
+	 * Reports a page opened within a workbench window
+	 * @param page The workbench page that was opened
+	 */
+	@Override
+	public void pageOpened(IWorkbenchPage page) {
+		em.addPage(page);
+	}
+
+	/**
+	 * Reports a page closed within a workbench window
+	 * @param page The workbench page that was closed
+	 */
+	@Override
+	public void pageClosed(IWorkbenchPage page) {
+		em.removePage(page);
+	}
+
+	/**
+	 * Unused
+	 */
+	@Override
+	public void pageActivated(IWorkbenchPage page) {
+	}
+
+	/**
+	 * Unused
+	 */
+	@Override
+	public void windowActivated(IWorkbenchWindow window) {
+	}
+
+	/**
+	 * Unused
+	 */
+	@Override
+	public void windowDeactivated(IWorkbenchWindow window) {
+	}
+}
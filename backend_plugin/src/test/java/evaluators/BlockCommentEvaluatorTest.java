@@ -1,6 +1,7 @@
 package test.java.evaluators;
 
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -12,6 +13,9 @@ import org.junit.Before;
 import org.junit.Test;
 
 import main.evaluators.BlockCommentEvaluator;
+import main.evaluators.DocumentChangeContext;
+import main.evaluators.DocumentChangeSnapshot;
+import main.evaluators.FeatureEvaluatorState;
 
 /**
  * Unit test for BlockCommentEvaluator
@@ -319,6 +323,110 @@ public class BlockCommentEvaluatorTest {
 		}
 	}
 
+	/**
+	 * Verifies that the evaluation function uses the time stamps it is given rather than the time it is
+	 * called at, so that changes evaluated late (e.g. after keystrokes are coalesced) are still judged by
+	 * when the user made them
+	 */
+	@Test
+	public void twoConsecutiveLinesCommentedOutWithGivenTimeStamps() {
+		try {
+			long timeStamp = System.currentTimeMillis();
+
+			// Comment out the first line all at once
+			offset = 0;
+			doc.replace(offset, 0, "//");
+			event = createDocEvent(offset, "//");
+			assertFalse(testEvaluator.evaluateDocumentChanges(event, timeStamp));
+
+			// Comment out the second line, reported as happening more than 100 ms later
+			offset = doc.getLineOffset(1);
+			doc.replace(offset, 0, "//");
+			event = createDocEvent(offset, "//");
+			assertTrue(testEvaluator.evaluateDocumentChanges(event, timeStamp + 101));
+
+			// Comment out the third line, reported as happening right after the second
+			offset = doc.getLineOffset(2);
+			doc.replace(offset, 0, "//");
+			event = createDocEvent(offset, "//");
+			assertFalse(testEvaluator.evaluateDocumentChanges(event, timeStamp + 102));
+		} catch (BadLocationException e) {
+			// Should never get here
+			fail("Should never see this error in: " + this.getClass().getSimpleName() + "::" + this.getClass().getName());
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Tests that the content filter only passes changes that insert a slash to the evaluator
+	 */
+	@Test
+	public void contentFilterOnlyMatchesSlashes() {
+		assertTrue(testEvaluator.matchesContent(DocumentChangeContext.classify(createDocEvent(0, SINGLE_SLASH))));
+		assertTrue(testEvaluator.matchesContent(DocumentChangeContext.classify(createDocEvent(0, "x //"))));
+		assertFalse(testEvaluator.matchesContent(DocumentChangeContext.classify(createDocEvent(0, "x"))));
+		assertFalse(testEvaluator.matchesContent(DocumentChangeContext.classify(new DocumentEvent(doc, 0, 1, ""))));
+	}
+
+	/**
+	 * Tests that a shared evaluator keeps the last commented out line of each document in that
+	 * document's state, so commenting out adjacent lines in two different documents does not trigger
+	 */
+	@Test
+	public void sharedEvaluatorKeepsStatePerDocument() {
+		BlockCommentEvaluator sharedEvaluator = new BlockCommentEvaluator(null);
+		IDocument otherDoc = new Document(content);
+		FeatureEvaluatorState state = new FeatureEvaluatorState();
+		FeatureEvaluatorState otherState = new FeatureEvaluatorState();
+		try {
+			// Comment out the first line of the first document
+			assertFalse(sharedEvaluator.evaluateDocumentChanges(commentOutLine(doc, 0), state, 0));
+
+			// Commenting out the second line of the other document should not trigger
+			assertFalse(sharedEvaluator.evaluateDocumentChanges(commentOutLine(otherDoc, 1), otherState, 1000));
+
+			// Commenting out the second line of the first document should trigger
+			assertTrue(sharedEvaluator.evaluateDocumentChanges(commentOutLine(doc, 1), state, 2000));
+		} catch (BadLocationException e) {
+			fail(e.getMessage());
+		}
+	}
+
+	/**
+	 * Tests that a change captured in a snapshot is evaluated from the captured line contents
+	 * only, so it still triggers after the document has been modified again
+	 */
+	@Test
+	public void snapshotEvaluatedWithoutReadingDocument() {
+		BlockCommentEvaluator sharedEvaluator = new BlockCommentEvaluator(null);
+		FeatureEvaluatorState state = new FeatureEvaluatorState();
+		try {
+			assertFalse(sharedEvaluator.evaluateDocumentChanges(commentOutLine(doc, 0), state, 0));
+			DocumentChangeSnapshot snapshot = DocumentChangeSnapshot.capture(commentOutLine(doc, 1), 1000);
+
+			// The user keeps typing before the snapshot is evaluated
+			doc.set("");
+			DocumentChangeContext context = snapshot.toContext(doc);
+			assertNull(context.getDocument());
+			assertTrue(sharedEvaluator.evaluateDocumentChanges(context, state, snapshot.getTimeStamp()));
+		} catch (BadLocationException e) {
+			fail(e.getMessage());
+		}
+	}
+
+	/**
+	 * Helper method to comment out a line of a document by inserting a double slash at its start
+	 * @param document The document to change
+	 * @param line The line to comment out
+	 * @return The context of the change
+	 * @throws BadLocationException If the line does not exist in the document
+	 */
+	private DocumentChangeContext commentOutLine(IDocument document, int line) throws BadLocationException {
+		int lineOffset = document.getLineOffset(line);
+		document.replace(lineOffset, 0, "//");
+		return new DocumentChangeContext(document, new DocumentEvent(document, lineOffset, 0, "//"));
+	}
+
 	/**
 	 * Helper method to create a new document event given the offset and text to be added
 	 * @param offset position in the document to add the text
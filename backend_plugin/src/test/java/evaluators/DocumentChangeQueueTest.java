@@ -0,0 +1,172 @@
+package test.java.evaluators;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.junit.Before;
+import org.junit.Test;
+
+import main.evaluators.DocumentChangeContext;
+import main.evaluators.DocumentChangeQueue;
+import main.evaluators.DocumentChangeSnapshot;
+import main.interfaces.BackpressurePolicy;
+
+/**
+ * Unit test for DocumentChangeQueue
+ */
+public class DocumentChangeQueueTest {
+
+	/** Initial content for the mock Document */
+	private static final String CONTENT = "Line1\nLine2\nLine3\n";
+	/** Capacity of the queue under test */
+	private static final int CAPACITY = 2;
+
+	/** Document the captured changes are made in */
+	private IDocument doc;
+	/** Queue being tested */
+	private DocumentChangeQueue queue;
+
+	/**
+	 * Initialize a new document and a new queue
+	 */
+	@Before
+	public void runBeforeTests() {
+		this.doc = new Document(CONTENT);
+		this.queue = new DocumentChangeQueue();
+	}
+
+	/**
+	 * Tests that only the first change offered asks for a drain task, until the queue is drained
+	 */
+	@Test
+	public void drainScheduledOncePerBacklog() throws BadLocationException {
+		assertTrue(queue.offer(typeAtStartOfLine(0, "a"), CAPACITY, BackpressurePolicy.DROP_OLDEST));
+		assertFalse(queue.offer(typeAtStartOfLine(1, "b"), CAPACITY, BackpressurePolicy.DROP_OLDEST));
+		queue.poll();
+		queue.poll();
+		assertNull(queue.poll());
+		assertTrue(queue.offer(typeAtStartOfLine(2, "c"), CAPACITY, BackpressurePolicy.DROP_OLDEST));
+	}
+
+	/**
+	 * Tests that the oldest waiting change is discarded when the queue is full
+	 */
+	@Test
+	public void dropOldestKeepsQueueBounded() throws BadLocationException {
+		queue.offer(typeAtStartOfLine(0, "a"), CAPACITY, BackpressurePolicy.DROP_OLDEST);
+		queue.offer(typeAtStartOfLine(1, "b"), CAPACITY, BackpressurePolicy.DROP_OLDEST);
+		assertFalse(queue.consumeChangeDiscarded());
+		queue.offer(typeAtStartOfLine(2, "c"), CAPACITY, BackpressurePolicy.DROP_OLDEST);
+
+		assertEquals(CAPACITY, queue.getDepth());
+		assertEquals(CAPACITY, queue.getMaxDepth());
+		assertEquals(1, queue.getDroppedCount());
+		assertTrue(queue.consumeChangeDiscarded());
+		assertEquals(1, queue.poll().getLine());
+		assertEquals(2, queue.poll().getLine());
+	}
+
+	/**
+	 * Tests that a waiting change to the same line is replaced by the newer change
+	 */
+	@Test
+	public void collapseKeepsLatestChangePerLine() throws BadLocationException {
+		queue.offer(typeAtStartOfLine(0, "a"), CAPACITY, BackpressurePolicy.COLLAPSE);
+		queue.offer(typeAtStartOfLine(1, "b"), CAPACITY, BackpressurePolicy.COLLAPSE);
+		queue.offer(typeAtStartOfLine(0, "c"), CAPACITY, BackpressurePolicy.COLLAPSE);
+
+		assertEquals(CAPACITY, queue.getDepth());
+		assertEquals(1, queue.getCollapsedCount());
+		assertEquals(0, queue.getDroppedCount());
+		assertTrue(queue.consumeChangeDiscarded());
+		assertEquals(1, queue.poll().getLine());
+		DocumentChangeSnapshot latest = queue.poll();
+		assertEquals(0, latest.getLine());
+		assertEquals("c", latest.getText());
+	}
+
+	/**
+	 * Tests that a full queue makes the offering thread wait until a change is taken off
+	 */
+	@Test
+	public void blockWaitsForRoom() throws BadLocationException, InterruptedException {
+		queue.offer(typeAtStartOfLine(0, "a"), CAPACITY, BackpressurePolicy.BLOCK);
+		queue.offer(typeAtStartOfLine(1, "b"), CAPACITY, BackpressurePolicy.BLOCK);
+		final DocumentChangeSnapshot third = typeAtStartOfLine(2, "c");
+
+		final CountDownLatch offered = new CountDownLatch(1);
+		Thread producer = new Thread(() -> {
+			queue.offer(third, CAPACITY, BackpressurePolicy.BLOCK, TimeUnit.SECONDS.toMillis(10));
+			offered.countDown();
+		});
+		producer.start();
+		assertFalse(offered.await(200, TimeUnit.MILLISECONDS));
+
+		queue.poll();
+		assertTrue(offered.await(10, TimeUnit.SECONDS));
+		assertEquals(1, queue.getBlockedCount());
+		assertEquals(0, queue.getDroppedCount());
+		assertEquals(CAPACITY, queue.getDepth());
+	}
+
+	/**
+	 * Tests that a change offered under the BLOCK policy on the calling (UI) thread stops waiting
+	 * for room after the timeout, and discards the oldest waiting change instead
+	 */
+	@Test
+	public void blockTimesOutAndDropsOldest() throws BadLocationException {
+		queue.offer(typeAtStartOfLine(0, "a"), CAPACITY, BackpressurePolicy.BLOCK);
+		queue.offer(typeAtStartOfLine(1, "b"), CAPACITY, BackpressurePolicy.BLOCK);
+		DocumentChangeSnapshot third = typeAtStartOfLine(2, "c");
+
+		long startTime = System.currentTimeMillis();
+		assertFalse(queue.offer(third, CAPACITY, BackpressurePolicy.BLOCK));
+		long elapsed = System.currentTimeMillis() - startTime;
+		assertTrue(elapsed >= DocumentChangeQueue.BLOCK_TIMEOUT_MILLIS);
+		assertTrue(elapsed < 10 * DocumentChangeQueue.BLOCK_TIMEOUT_MILLIS);
+
+		assertEquals(1, queue.getBlockedCount());
+		assertEquals(1, queue.getBlockTimeoutCount());
+		assertEquals(1, queue.getDroppedCount());
+		assertTrue(queue.consumeChangeDiscarded());
+		assertFalse(queue.consumeChangeDiscarded());
+
+		// The newest change is kept, behind the second one
+		assertEquals(1, queue.poll().getLine());
+		assertEquals(third, queue.poll());
+	}
+
+	/**
+	 * Tests that closing the queue discards waiting changes and refuses new ones
+	 */
+	@Test
+	public void closedQueueRefusesChanges() throws BadLocationException {
+		queue.offer(typeAtStartOfLine(0, "a"), CAPACITY, BackpressurePolicy.DROP_OLDEST);
+		queue.close();
+		assertEquals(0, queue.getDepth());
+		assertFalse(queue.offer(typeAtStartOfLine(1, "b"), CAPACITY, BackpressurePolicy.DROP_OLDEST));
+		assertNull(queue.poll());
+	}
+
+	/**
+	 * Mocks the user typing the given text at the start of the given line, and captures the change
+	 * @param line The line to type on
+	 * @param text The text to type
+	 * @return The captured change
+	 */
+	private DocumentChangeSnapshot typeAtStartOfLine(int line, String text) throws BadLocationException {
+		int offset = doc.getLineOffset(line);
+		doc.replace(offset, 0, text);
+		DocumentEvent event = new DocumentEvent(doc, offset, 0, text);
+		return DocumentChangeSnapshot.capture(new DocumentChangeContext(doc, event), System.currentTimeMillis());
+	}
+}
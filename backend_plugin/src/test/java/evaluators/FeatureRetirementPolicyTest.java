@@ -0,0 +1,104 @@
+package test.java.evaluators;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import main.evaluators.FeatureRetirementPolicy;
+import main.interfaces.EvaluationSettings;
+import main.interfaces.FeatureID;
+
+/**
+ * Unit test for FeatureRetirementPolicy. The policy is not loaded, so nothing is stored in the
+ * preferences.
+ */
+public class FeatureRetirementPolicyTest {
+
+	/** Feature the counts are recorded for */
+	private static final String FEATURE = FeatureID.BLOCK_COMMENT_FEATURE_ID;
+
+	/** Policy being tested */
+	private FeatureRetirementPolicy policy;
+	/** Settings holding the retirement limits */
+	private EvaluationSettings settings;
+
+	/**
+	 * Initialize a new policy, retiring features after three notifications or two uses
+	 */
+	@Before
+	public void runBeforeTests() {
+		this.policy = new FeatureRetirementPolicy();
+		this.settings = new EvaluationSettings();
+		this.settings.setRetirementNotificationLimit(3);
+		this.settings.setRetirementAdoptionLimit(2);
+	}
+
+	/**
+	 * Tests that notifications and uses are counted separately for each feature
+	 */
+	@Test
+	public void countsNotificationsAndAdoptions() {
+		policy.recordNotification(FEATURE, settings);
+		policy.recordNotification(FEATURE, settings);
+		policy.recordAdoption(FEATURE, settings);
+		assertEquals(2, policy.getNotificationCount(FEATURE));
+		assertEquals(1, policy.getAdoptionCount(FEATURE));
+		assertEquals(0, policy.getNotificationCount(FeatureID.GETTER_SETTER_FEATURE_ID));
+		assertFalse(policy.isRetired(FEATURE));
+	}
+
+	/**
+	 * Tests that a feature is retired exactly once, by the notification that reaches the limit
+	 */
+	@Test
+	public void retiredOnReachingNotificationLimit() {
+		assertFalse(policy.recordNotification(FEATURE, settings));
+		assertFalse(policy.recordNotification(FEATURE, settings));
+		assertTrue(policy.recordNotification(FEATURE, settings));
+		assertTrue(policy.isRetired(FEATURE));
+		assertFalse(policy.recordNotification(FEATURE, settings));
+		assertTrue(policy.getRetiredFeatureIDs().contains(FEATURE));
+	}
+
+	/**
+	 * Tests that a feature is retired by the use that reaches the adoption limit
+	 */
+	@Test
+	public void retiredOnReachingAdoptionLimit() {
+		assertFalse(policy.recordAdoption(FEATURE, settings));
+		assertTrue(policy.recordAdoption(FEATURE, settings));
+		assertTrue(policy.isRetired(FEATURE));
+	}
+
+	/**
+	 * Tests that a limit of 0 never retires a feature
+	 */
+	@Test
+	public void zeroLimitNeverRetires() {
+		settings.setRetirementNotificationLimit(0);
+		for (int i = 0; i < 10; i++) {
+			assertFalse(policy.recordNotification(FEATURE, settings));
+		}
+		assertFalse(policy.isRetired(FEATURE));
+	}
+
+	/**
+	 * Tests that resetting a retired feature un-retires it and starts its counts over
+	 */
+	@Test
+	public void resetUnretiresAndClearsCounts() {
+		policy.recordAdoption(FEATURE, settings);
+		policy.recordAdoption(FEATURE, settings);
+		assertTrue(policy.resetRetirement(FEATURE));
+		assertFalse(policy.isRetired(FEATURE));
+		assertEquals(0, policy.getAdoptionCount(FEATURE));
+		assertFalse(policy.resetRetirement(FEATURE));
+
+		// The feature can be retired again once it reaches the limit anew
+		assertFalse(policy.recordAdoption(FEATURE, settings));
+		assertTrue(policy.recordAdoption(FEATURE, settings));
+	}
+}
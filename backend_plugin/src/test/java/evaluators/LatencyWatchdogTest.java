@@ -0,0 +1,85 @@
+package test.java.evaluators;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import main.evaluators.LatencyWatchdog;
+import main.interfaces.EvaluationSettings;
+import main.interfaces.FeatureID;
+
+/**
+ * Unit test for LatencyWatchdog
+ */
+public class LatencyWatchdogTest {
+
+	/** Feature whose evaluator calls are recorded */
+	private static final String FEATURE = FeatureID.GETTER_SETTER_FEATURE_ID;
+
+	/** Watchdog being tested */
+	private LatencyWatchdog watchdog;
+	/** Settings holding the latency budget and strike limit */
+	private EvaluationSettings settings;
+
+	/**
+	 * Initialize a new watchdog and default settings
+	 */
+	@Before
+	public void runBeforeTests() {
+		this.watchdog = new LatencyWatchdog();
+		this.settings = new EvaluationSettings();
+	}
+
+	/**
+	 * Tests that the watchdog is off by default, so even very slow calls are never counted
+	 */
+	@Test
+	public void offByDefault() {
+		for (int i = 0; i < 10; i++) {
+			assertFalse(watchdog.recordCall(FEATURE, 10000, settings));
+		}
+		assertEquals(0, watchdog.getStrikes(FEATURE));
+	}
+
+	/**
+	 * Tests that only calls over budget are counted, and that the call using up the last strike
+	 * asks for the quarantine exactly once
+	 */
+	@Test
+	public void lastStrikeAsksForQuarantine() {
+		settings.setEvaluatorLatencyBudget(50);
+		settings.setQuarantineStrikeLimit(2);
+		assertFalse(watchdog.recordCall(FEATURE, 10, settings));
+		assertFalse(watchdog.recordCall(FEATURE, 60, settings));
+		assertTrue(watchdog.recordCall(FEATURE, 60, settings));
+		assertFalse(watchdog.recordCall(FEATURE, 60, settings));
+		assertEquals(3, watchdog.getStrikes(FEATURE));
+	}
+
+	/**
+	 * Tests that a quarantined feature is restored once the quarantine is lifted, and starts over
+	 * with no strikes
+	 */
+	@Test
+	public void quarantineLiftedAndRestored() {
+		settings.setEvaluatorLatencyBudget(50);
+		settings.setQuarantineStrikeLimit(1);
+		assertTrue(watchdog.recordCall(FEATURE, 60, settings));
+		watchdog.quarantine(FEATURE);
+		assertTrue(watchdog.isQuarantined(FEATURE));
+		assertEquals(Collections.singleton(FEATURE), watchdog.getQuarantinedFeatureIDs());
+
+		assertEquals(Collections.singleton(FEATURE), watchdog.liftQuarantine());
+		assertFalse(watchdog.isQuarantined(FEATURE));
+		assertEquals(0, watchdog.getStrikes(FEATURE));
+		assertTrue(watchdog.liftQuarantine().isEmpty());
+
+		// A restored feature evaluator can be quarantined again if it is still too slow
+		assertTrue(watchdog.recordCall(FEATURE, 60, settings));
+	}
+}
@@ -3,12 +3,15 @@ package test.java.evaluators;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import org.eclipse.jdt.core.compiler.IProblem;
 import org.eclipse.jface.text.Position;
 import org.eclipse.jface.text.source.Annotation;
 import org.eclipse.jface.text.source.AnnotationModel;
 import org.junit.Before;
 import org.junit.Test;
 
+import main.evaluators.AnnotationClassifier;
+import main.evaluators.AnnotationModelDelta;
 import main.evaluators.RemoveImportEvaluator;
 
 public class RemoveImportEvaluatorTest {
@@ -16,6 +19,9 @@ public class RemoveImportEvaluatorTest {
 	/** Mock unused import annotation */
 	private static final Annotation ANNOTATION = new Annotation("org.eclipse.jdt.ui.warning",
 			false, "The import java.util.Map is never used");
+	/** Mock unused import annotation reported in another language, identified by its problem ID */
+	private static final Annotation TRANSLATED_ANNOTATION = new ProblemAnnotation(IProblem.UnusedImport,
+			"Der Import java.util.Map wird nie verwendet");
 	/** Position used with the mock Annotation */
 	private static final Position POSITION = new Position(0);
 
@@ -44,6 +50,57 @@ public class RemoveImportEvaluatorTest {
 		assertTrue(eval.hasActiveUnusedImportStatement());
 	}
 
+	/**
+	 * Tests that unused import annotations are tracked from only the annotations that were added and
+	 * removed, without rescanning the annotation model
+	 */
+	@Test
+	public void unusedImportsTrackedThroughDeltas() {
+		AnnotationClassifier classifier = new AnnotationClassifier();
+
+		// The annotation is added to the model
+		am.addAnnotation(ANNOTATION, POSITION);
+		AnnotationModelDelta delta = new AnnotationModelDelta();
+		delta.annotationAdded(ANNOTATION);
+		classifier.update(am, delta);
+		eval.evaluateAnnotationModelChanges(am, classifier);
+		assertTrue(eval.hasActiveUnusedImportStatement());
+
+		// The annotation is removed from the model
+		am.removeAnnotation(ANNOTATION);
+		delta = new AnnotationModelDelta();
+		delta.annotationRemoved(ANNOTATION);
+		classifier.update(am, delta);
+		eval.evaluateAnnotationModelChanges(am, classifier);
+		assertFalse(eval.hasActiveUnusedImportStatement());
+	}
+
+	/**
+	 * Tests that unused import annotations are recognized by their problem ID, regardless of the
+	 * language their message is in
+	 */
+	@Test
+	public void unusedImportRecognizedByProblemId() {
+		am.addAnnotation(TRANSLATED_ANNOTATION, POSITION);
+		eval.evaluateAnnotationModelChanges(am);
+		assertTrue(eval.hasActiveUnusedImportStatement());
+	}
+
+	/**
+	 * Tests that saving a document with an unused import triggers the feature through the save
+	 * hook, and that saving it once the import is gone does not
+	 */
+	@Test
+	public void evaluateOnSaveWithUnusedImports() {
+		am.addAnnotation(ANNOTATION, POSITION);
+		eval.evaluateAnnotationModelChanges(am);
+		assertTrue(eval.evaluateOnSave());
+
+		am.removeAnnotation(ANNOTATION);
+		eval.evaluateAnnotationModelChanges(am);
+		assertFalse(eval.evaluateOnSave());
+	}
+
 	/**
 	 * Tests that a document being saved in the worspace while this document does not have any
 	 * unused imports does not trigger the feature evaluation
@@ -52,4 +109,29 @@ public class RemoveImportEvaluatorTest {
 	public void saveEventWithoutUnusedImports() {
 		assertFalse(eval.hasActiveUnusedImportStatement());
 	}
+
+	/**
+	 * Mock of the Java editor's problem annotations, which report their JDT problem ID
+	 */
+	public static class ProblemAnnotation extends Annotation {
+
+		/** The JDT problem ID of the problem being reported */
+		private final int id;
+
+		/**
+		 * @param id The JDT problem ID of the problem being reported
+		 * @param text The problem message
+		 */
+		public ProblemAnnotation(int id, String text) {
+			super("org.eclipse.jdt.ui.warning", false, text);
+			this.id = id;
+		}
+
+		/**
+		 * @return The JDT problem ID of the problem being reported
+		 */
+		public int getId() {
+			return this.id;
+		}
+	}
 }
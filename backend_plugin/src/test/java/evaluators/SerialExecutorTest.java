@@ -0,0 +1,148 @@
+package test.java.evaluators;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import main.evaluators.SerialExecutor;
+
+/**
+ * Unit test for SerialExecutor
+ */
+public class SerialExecutorTest {
+
+	/** Number of tasks submitted to each queue */
+	private static final int TASK_COUNT = 200;
+
+	/** Shared pool the serial queues run on */
+	private ExecutorService pool;
+
+	/**
+	 * Create a new shared pool
+	 */
+	@Before
+	public void runBeforeTests() {
+		this.pool = Executors.newFixedThreadPool(4);
+	}
+
+	/**
+	 * Shut the shared pool down
+	 */
+	@After
+	public void runAfterTests() {
+		this.pool.shutdownNow();
+	}
+
+	/**
+	 * Tests that the tasks of one queue run in the order they were submitted, and never overlap,
+	 * even though the pool has several threads
+	 */
+	@Test
+	public void tasksRunInOrderWithoutOverlapping() throws InterruptedException {
+		SerialExecutor executor = new SerialExecutor(this.pool);
+		final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+		final AtomicBoolean running = new AtomicBoolean();
+		final AtomicBoolean overlapped = new AtomicBoolean();
+		final CountDownLatch done = new CountDownLatch(TASK_COUNT);
+
+		for (int i = 0; i < TASK_COUNT; i++) {
+			final int task = i;
+			executor.execute(() -> {
+				if (!running.compareAndSet(false, true)) {
+					overlapped.set(true);
+				}
+				order.add(task);
+				running.set(false);
+				done.countDown();
+			});
+		}
+
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		assertFalse(overlapped.get());
+		for (int i = 0; i < TASK_COUNT; i++) {
+			assertEquals(i, (int) order.get(i));
+		}
+	}
+
+	/**
+	 * Tests that the tasks of different queues can run at the same time on the shared pool
+	 */
+	@Test
+	public void queuesRunInParallel() throws InterruptedException {
+		final CountDownLatch bothStarted = new CountDownLatch(2);
+		Runnable task = () -> {
+			bothStarted.countDown();
+			try {
+				bothStarted.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+			}
+		};
+
+		new SerialExecutor(this.pool).execute(task);
+		new SerialExecutor(this.pool).execute(task);
+		assertTrue(bothStarted.await(10, TimeUnit.SECONDS));
+	}
+
+	/**
+	 * Tests that switching the pool while a task is running hands the next task to the new pool
+	 * only once the running task has finished on the old one
+	 */
+	@Test
+	public void switchingPoolKeepsTasksInOrder() throws InterruptedException {
+		ExecutorService otherPool = Executors.newSingleThreadExecutor();
+		try {
+			SerialExecutor executor = new SerialExecutor(this.pool);
+			final CountDownLatch release = new CountDownLatch(1);
+			final AtomicBoolean firstFinished = new AtomicBoolean();
+			final AtomicBoolean secondRanInOrder = new AtomicBoolean();
+			final CountDownLatch secondDone = new CountDownLatch(1);
+			executor.execute(() -> {
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				firstFinished.set(true);
+			});
+
+			executor.setPool(otherPool);
+			executor.execute(() -> {
+				secondRanInOrder.set(firstFinished.get());
+				secondDone.countDown();
+			});
+			assertFalse(secondDone.await(200, TimeUnit.MILLISECONDS));
+
+			release.countDown();
+			assertTrue(secondDone.await(10, TimeUnit.SECONDS));
+			assertTrue(secondRanInOrder.get());
+			assertEquals(otherPool, executor.getPool());
+		} finally {
+			otherPool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Tests that waiting tasks are discarded once the shared pool is shut down
+	 */
+	@Test
+	public void tasksDiscardedAfterPoolShutdown() {
+		SerialExecutor executor = new SerialExecutor(this.pool);
+		this.pool.shutdownNow();
+		executor.execute(() -> {});
+		executor.execute(() -> {});
+		assertEquals(0, executor.getPendingTaskCount());
+	}
+}
@@ -11,6 +11,7 @@ import org.eclipse.jface.text.IDocument;
 import org.junit.Before;
 import org.junit.Test;
 
+import main.evaluators.DocumentChangeContext;
 import main.evaluators.TrailingWhiteSpaceEvaluator;
 
 public class TrailingWhiteSpaceEvaluatorTest {
@@ -160,6 +161,16 @@ public class TrailingWhiteSpaceEvaluatorTest {
 		}
 	}
 
+	/**
+	 * Tests that the content filter only passes deletions to the evaluator
+	 */
+	@Test
+	public void contentFilterOnlyMatchesDeletions() {
+		assertTrue(eval.matchesContent(DocumentChangeContext.classify(new DocumentEvent(doc, 0, 1, ""))));
+		assertFalse(eval.matchesContent(DocumentChangeContext.classify(new DocumentEvent(doc, 0, 0, "a"))));
+		assertFalse(eval.matchesContent(DocumentChangeContext.classify(new DocumentEvent(doc, 0, 0, " "))));
+	}
+
 	/**
 	 * Mocks the user typing the given string into the document at
 	 * the given offset. Evaluates the result to see if the feature